@@ -3,18 +3,40 @@ package it.demo.fabrick;
 import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 
+/**
+ * Actuator security: read operations are open, write operations (e.g. the admission limits)
+ * need HTTP Basic authentication of a user with role {@value #ADMIN_ROLE}
+ * ({@code spring.security.user.*}) and the CSRF token of the XSRF-TOKEN cookie in the
+ * X-XSRF-TOKEN header.
+ */
 @Configuration(proxyBeanMethods = false)
 @EnableWebSecurity
 public class ActuatorSecurity {
 
+	public static final String ADMIN_ROLE = "ACTUATOR_ADMIN";
+
 	@Bean
 	public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+		// token loaded on every request, so that a GET hands out the XSRF-TOKEN cookie for the next write
+		CsrfTokenRequestAttributeHandler csrfHandler = new CsrfTokenRequestAttributeHandler();
+		csrfHandler.setCsrfRequestAttributeName(null);
+
 		http.securityMatcher(EndpointRequest.toAnyEndpoint())
-			.authorizeHttpRequests(authorize -> authorize.anyRequest().permitAll());
+			.authorizeHttpRequests(authorize -> authorize
+				.requestMatchers(HttpMethod.GET).permitAll()
+				.anyRequest().hasRole(ADMIN_ROLE))
+			.httpBasic(Customizer.withDefaults())
+			.csrf(csrf -> csrf
+				.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+				.csrfTokenRequestHandler(csrfHandler));
 
 		return http.build();
 	}
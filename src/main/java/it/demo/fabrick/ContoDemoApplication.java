@@ -1,22 +1,34 @@
 package it.demo.fabrick;
 
-import java.util.List;
-
-import jakarta.annotation.PostConstruct;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.reactiverse.contextual.logging.ContextualData;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Verticle;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
-import io.vertx.core.eventbus.DeliveryOptions;
+import it.demo.fabrick.cache.CacheWarmUp;
+import it.demo.fabrick.config.VerticleDeploymentProperties;
+import it.demo.fabrick.utils.Deadline;
+import it.demo.fabrick.vertx.HttpServerVerticle;
+import it.demo.fabrick.vertx.SpringVerticleFactory;
+import it.demo.fabrick.vertx.codec.EventBusCodecs;
 import lombok.extern.slf4j.Slf4j;
 
 @PropertySource("${applicationPropertiesPath:file:/data/application.properties}")
@@ -27,18 +39,41 @@ import lombok.extern.slf4j.Slf4j;
 public class ContoDemoApplication {
 
     @Autowired
-	private List<Verticle> verticleList;
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private SpringVerticleFactory springVerticleFactory;
+
+	@Autowired
+	private VerticleDeploymentProperties deploymentProperties;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private CacheWarmUp cacheWarmUp;
 
 	@Value("${vertx.eventLoopExecuteTime:2000000000}")
 	private String eventLoopExecuteTime;
 
+	// numero di istanze di HttpServerVerticle, <= 0 per usarne una per core
+	@Value("${http.server.instances:0}")
+	private int httpServerInstances;
+
+	// attesa massima della chiusura di vert.x (stop dei verticle) allo shutdown
+	@Value("${vertx.shutdownTimeoutMillis:30000}")
+	private long shutdownTimeoutMillis;
+
+	private volatile Vertx vertx;
+
     public static void main(String[] args) {
 
         // lancio di SpringBoot
         SpringApplication.run(ContoDemoApplication.class, args);
     }
 
-    @PostConstruct
+    // deploy a contesto Spring avviato: le istanze dei verticle vengono richieste a Spring dagli event loop
+    @EventListener(ApplicationReadyEvent.class)
 	public void deployVerticle() {
 
 		final VertxOptions vertOptions = new VertxOptions();
@@ -47,27 +82,51 @@ public class ContoDemoApplication {
 
         configureInterceptor(vertx);
 
-        // i deploy sono asincroni
-		verticleList.stream().forEach(verticle -> {
-			vertx.deployVerticle(verticle);
-		});
+        // i DTO viaggiano sull'event bus per riferimento, la serializzazione Jackson serve solo in cluster
+        EventBusCodecs.register(vertx.eventBus(), objectMapper);
+
+        vertx.registerVerticleFactory(springVerticleFactory);
 
-        // per fare in modo che quando venga chiuso SpringBoot, venga chiuso anche il contesto vert.x e tutti i verticle
-        // deplotati altrimenti rimangono attivi
-        Runtime.getRuntime().addShutdownHook(new Thread() {
+        this.vertx = vertx;
 
-            @Override
-            public void run() {
-				log.info("shutdown");
-                vertx.deploymentIDs().forEach(vertx::undeploy);
-                vertx.close();
-            }
-        });
+        // le cache vengono caricate dal database prima del deploy, così le prime richieste dopo un riavvio
+        // non vanno a Fabrick né trovano H2 a freddo
+        cacheWarmUp.run(vertx).onComplete(v -> deployVerticles(vertx));
+    }
+
+    private void deployVerticles(Vertx vertx) {
+        // i verticle sono bean prototype: la factory crea un'istanza Spring per ogni istanza deployata,
+        // numero di istanze e threading model sono configurabili per verticle (vertx.deployment.<beanName>.*)
+        // le istanze di HttpServerVerticle condividono la stessa porta e Vert.x distribuisce le connessioni in round-robin
+		int httpInstances = VerticleDeploymentProperties.instancesOrCores(httpServerInstances);
 
+        // i deploy sono asincroni
+		for (String beanName : applicationContext.getBeanNamesForType(Verticle.class)) {
+			boolean httpServer = HttpServerVerticle.class.equals(applicationContext.getType(beanName));
+			DeploymentOptions options = deploymentProperties.toDeploymentOptions(beanName, httpServer ? httpInstances : 1);
+
+			log.info("deploying {} - instances: {}, threadingModel: {}", beanName, options.getInstances(), options.getThreadingModel());
+			vertx.deployVerticle(SpringVerticleFactory.verticleName(beanName), options)
+				.onFailure(e -> log.error("deploy of {} failed", beanName, e));
+		}
     }
 
-    public static DeliveryOptions getDefaultDeliverOptions(){
-        return new DeliveryOptions().setSendTimeout(100000); // 100 seconds for money transfer operations
+    // alla chiusura di SpringBoot viene chiuso anche il contesto vert.x con tutti i verticle deployati, altrimenti
+    // rimangono attivi; la chiusura avviene prima della distruzione dei bean (es. DatabasePool), in modo che i verticle
+    // possano completare il loro stop (es. flush del buffer di TransactionPersistenceVerticle)
+    @EventListener(ContextClosedEvent.class)
+    public void closeVertx() {
+        if (vertx == null) {
+            return;
+        }
+        log.info("shutdown");
+        try {
+            vertx.close().toCompletionStage().toCompletableFuture().get(shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("vert.x close failed or not completed within {} ms", shutdownTimeoutMillis, e);
+        }
     }
 
     private void configureInterceptor(Vertx vertx) {
@@ -84,6 +143,15 @@ public class ContoDemoApplication {
 			if (requestId != null) {
 				ContextualData.put("requestId", requestId);
 			}
+			// il deadline arriva come header: scaduto il deadline il mittente è già andato in timeout, il lavoro viene scartato
+			String deadline = event.message().headers().get(Deadline.HEADER);
+			if (deadline != null) {
+				ContextualData.put(Deadline.HEADER, deadline);
+				if (Deadline.remainingMillis(deadline) <= 0) {
+					log.warn("deadline scaduto, messaggio per '{}' scartato", event.message().address());
+					return;
+				}
+			}
 			event.next();
 		});
     }
@@ -0,0 +1,178 @@
+package it.demo.fabrick.admission;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import it.demo.fabrick.config.AdmissionProperties;
+import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.utils.StatusConstants;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control of the REST routes: each route has a {@link ConcurrencyLimiter},
+ * shared by all the HttpServerVerticle instances. Requests over the limit wait in a
+ * bounded queue; when the queue is full or the wait too long they get a fast HTTP 503
+ * with Retry-After instead of queueing unbounded work on the event bus.
+ *
+ * Metrics (tagged with {@code route}):
+ * - http.admission.in_flight: requests holding a permit
+ * - http.admission.queued: requests waiting for a permit
+ * - http.admission.limit: current concurrency limit
+ * - http.admission.rejected: shed requests, tagged with {@code reason} queue_full or queue_timeout
+ */
+@Component
+@Slf4j
+public class AdmissionController {
+
+    public static final String BALANCE = "balance";
+    public static final String TRANSACTIONS = "transactions";
+    public static final String MONEY_TRANSFER = "moneyTransfer";
+
+    private static final String PERMIT = "admission.permit";
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ConcurrencyLimiter> limiters = new LinkedHashMap<String, ConcurrencyLimiter>();
+
+    public AdmissionController(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        register(BALANCE, properties.getBalance());
+        register(TRANSACTIONS, properties.getTransactions());
+        register(MONEY_TRANSFER, properties.getMoneyTransfer());
+    }
+
+    private void register(String route, AdmissionProperties.Limit limit) {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(route, limit.getMaxConcurrent(), limit.getMaxQueue());
+        limiters.put(route, limiter);
+
+        Gauge.builder("http.admission.in_flight", limiter, ConcurrencyLimiter::getInFlight)
+            .description("REST requests holding an admission permit")
+            .tag("route", route)
+            .register(meterRegistry);
+        Gauge.builder("http.admission.queued", limiter, ConcurrencyLimiter::getQueued)
+            .description("REST requests waiting for an admission permit")
+            .tag("route", route)
+            .register(meterRegistry);
+        Gauge.builder("http.admission.limit", limiter, ConcurrencyLimiter::getMaxConcurrent)
+            .description("Concurrency limit of the REST route")
+            .tag("route", route)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Route handler admitting the request before the next handler; the permit is
+     * released when the response ends or the connection is closed, unless detached.
+     * A request whose connection closed while it was queued gives its permit back at once.
+     *
+     * @param route the route name, one of the constants of this class
+     * @return the admission handler
+     */
+    public Handler<RoutingContext> handler(String route) {
+        ConcurrencyLimiter limiter = limiter(route);
+        return ctx -> {
+            if (!properties.isEnabled()) {
+                ctx.next();
+                return;
+            }
+            limiter.acquire(ctx.vertx().getOrCreateContext(), properties.getQueueTimeout()).onComplete(ar -> {
+                if (ar.succeeded() && (ctx.response().closed() || ctx.response().ended())) {
+                    // client gone while queued: the end handler would never be called
+                    limiter.release();
+                } else if (ar.succeeded()) {
+                    Permit permit = new Permit(limiter);
+                    ctx.put(PERMIT, permit);
+                    ctx.addEndHandler(v -> {
+                        if (!permit.detached) {
+                            permit.release();
+                        }
+                    });
+                    ctx.next();
+                } else {
+                    shed(ctx, route, (ConcurrencyLimiter.RejectedException) ar.cause());
+                }
+            });
+        };
+    }
+
+    /**
+     * Keep the admission permit of the request after its response, for work that goes on
+     * in the background (e.g. an async money transfer), so that it still counts against
+     * the route concurrency limit.
+     *
+     * @param ctx the admitted request
+     * @return releases the permit, once; does nothing if the request holds no permit
+     */
+    public static Runnable detach(RoutingContext ctx) {
+        Permit permit = ctx.get(PERMIT);
+        if (permit == null) {
+            return () -> {
+            };
+        }
+        permit.detached = true;
+        return permit::release;
+    }
+
+    private void shed(RoutingContext ctx, String route, ConcurrencyLimiter.RejectedException rejection) {
+        Counter.builder("http.admission.rejected")
+            .tag("route", route)
+            .tag("reason", rejection.getReason())
+            .register(meterRegistry)
+            .increment();
+        log.warn("Request shed on route '{}': {}", route, rejection.getReason());
+
+        JsonObject errorResponse = new JsonObject()
+            .put("status", StatusConstants.ERROR)
+            .put("requestId", java.util.UUID.randomUUID().toString())
+            .put("message", "ErrorCode " + ErrorCode.SERVER_OVERLOADED + " - " + rejection.getMessage());
+
+        ctx.response()
+            .setStatusCode(ErrorCode.toHttpStatusCode(ErrorCode.SERVER_OVERLOADED))
+            .putHeader("Retry-After", String.valueOf(properties.getRetryAfter()))
+            .putHeader("Content-Type", "application/json")
+            .end(errorResponse.encode());
+    }
+
+    /**
+     * @throws NoSuchElementException if the route has no limiter
+     */
+    public ConcurrencyLimiter limiter(String route) {
+        ConcurrencyLimiter limiter = limiters.get(route);
+        if (limiter == null) {
+            throw new NoSuchElementException("No admission limiter for route: " + route);
+        }
+        return limiter;
+    }
+
+    public Collection<ConcurrencyLimiter> limiters() {
+        return limiters.values();
+    }
+
+    private static class Permit {
+
+        private final ConcurrencyLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean detached;
+
+        Permit(ConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+    }
+}
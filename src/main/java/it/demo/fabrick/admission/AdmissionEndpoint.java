@@ -0,0 +1,57 @@
+package it.demo.fabrick.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Actuator endpoint to read and change the admission limits at runtime:
+ * {@code GET /actuator/admission} and
+ * {@code POST /actuator/admission/{route}} with body {@code {"maxConcurrent": 32, "maxQueue": 64}}.
+ * The write operation is restricted to the actuator admin, see {@link it.demo.fabrick.ActuatorSecurity}.
+ */
+@Component
+@Endpoint(id = "admission")
+@Slf4j
+public class AdmissionEndpoint {
+
+    private final AdmissionController admissionController;
+
+    public AdmissionEndpoint(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Integer>> limits() {
+        Map<String, Map<String, Integer>> limits = new LinkedHashMap<String, Map<String, Integer>>();
+        admissionController.limiters().forEach(limiter -> limits.put(limiter.getName(), describe(limiter)));
+        return limits;
+    }
+
+    @WriteOperation
+    public Map<String, Integer> update(@Selector String route, int maxConcurrent, int maxQueue) {
+        if (maxConcurrent < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1 and maxQueue not negative");
+        }
+        ConcurrencyLimiter limiter = admissionController.limiter(route);
+        limiter.setLimits(maxConcurrent, maxQueue);
+        log.info("Admission limits of route '{}' changed - maxConcurrent: {}, maxQueue: {}", route, maxConcurrent, maxQueue);
+        return describe(limiter);
+    }
+
+    private static Map<String, Integer> describe(ConcurrencyLimiter limiter) {
+        Map<String, Integer> state = new LinkedHashMap<String, Integer>();
+        state.put("maxConcurrent", limiter.getMaxConcurrent());
+        state.put("maxQueue", limiter.getMaxQueue());
+        state.put("inFlight", limiter.getInFlight());
+        state.put("queued", limiter.getQueued());
+        return state;
+    }
+}
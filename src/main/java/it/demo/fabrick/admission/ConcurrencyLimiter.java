@@ -0,0 +1,160 @@
+package it.demo.fabrick.admission;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+/**
+ * Concurrency limit with a bounded FIFO wait queue, shared by all the verticle
+ * instances: one per REST route for admission control, one per Fabrick endpoint
+ * driven by its adaptive limit.
+ *
+ * A request over the limit waits in the queue until a permit is released, or fails
+ * at once when the queue is full and after {@code queueTimeoutMillis} in the queue.
+ * Waiters are resumed on their own event loop context.
+ * Limits can be changed at runtime with {@link #setLimits(int, int)}.
+ */
+public class ConcurrencyLimiter {
+
+    public static final String QUEUE_FULL = "queue_full";
+    public static final String QUEUE_TIMEOUT = "queue_timeout";
+
+    private final String name;
+    private final Deque<Waiter> queue = new ArrayDeque<Waiter>();
+    private int maxConcurrent;
+    private int maxQueue;
+    private int inFlight;
+
+    public ConcurrencyLimiter(String name, int maxConcurrent, int maxQueue) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * Take a permit, waiting in the queue if the route is at its limit.
+     *
+     * @param context the context of the caller, on which the returned future completes
+     * @param queueTimeoutMillis max time spent in the queue
+     * @return a future completed once the permit is granted, to be released with {@link #release()};
+     *         failed with a {@link RejectedException} if the request is shed
+     */
+    public Future<Void> acquire(Context context, long queueTimeoutMillis) {
+        Waiter waiter;
+        synchronized (this) {
+            if (inFlight < maxConcurrent && queue.isEmpty()) {
+                inFlight++;
+                return Future.succeededFuture();
+            }
+            if (queue.size() >= maxQueue) {
+                return Future.failedFuture(new RejectedException(QUEUE_FULL,
+                    "Too many requests in progress for '" + name + "'"));
+            }
+            waiter = new Waiter(context);
+            queue.addLast(waiter);
+        }
+
+        waiter.timerId = context.owner().setTimer(queueTimeoutMillis, id -> {
+            if (remove(waiter)) {
+                waiter.promise.fail(new RejectedException(QUEUE_TIMEOUT,
+                    "Request queued too long for '" + name + "'"));
+            }
+        });
+        return waiter.promise.future();
+    }
+
+    /**
+     * Release a permit, handing it over to the first queued request if any.
+     */
+    public void release() {
+        Waiter next;
+        synchronized (this) {
+            next = queue.pollFirst();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+        }
+        grant(next);
+    }
+
+    /**
+     * Change the limits; queued requests are admitted at once if the limit was raised.
+     */
+    public void setLimits(int maxConcurrent, int maxQueue) {
+        Deque<Waiter> admitted = new ArrayDeque<Waiter>();
+        synchronized (this) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            while (inFlight < maxConcurrent && !queue.isEmpty()) {
+                inFlight++;
+                admitted.add(queue.pollFirst());
+            }
+        }
+        admitted.forEach(this::grant);
+    }
+
+    private void grant(Waiter waiter) {
+        if (waiter.timerId >= 0) {
+            waiter.context.owner().cancelTimer(waiter.timerId);
+        }
+        waiter.context.runOnContext(v -> waiter.promise.complete());
+    }
+
+    private synchronized boolean remove(Waiter waiter) {
+        return queue.remove(waiter);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    private static final class Waiter {
+
+        private final Context context;
+        private final Promise<Void> promise = Promise.promise();
+        private volatile long timerId = -1;
+
+        private Waiter(Context context) {
+            this.context = context;
+        }
+    }
+
+    /**
+     * Request shed by the limiter, {@code reason} is {@link #QUEUE_FULL} or {@link #QUEUE_TIMEOUT}.
+     */
+    public static class RejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String reason;
+
+        public RejectedException(String reason, String message) {
+            super(message, null, false, false);
+            this.reason = reason;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
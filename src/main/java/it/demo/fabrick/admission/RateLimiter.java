@@ -0,0 +1,176 @@
+package it.demo.fabrick.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import it.demo.fabrick.config.RateLimitProperties;
+import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.utils.StatusConstants;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-client token bucket rate limiting of the REST routes, shared by all the
+ * HttpServerVerticle instances.
+ *
+ * Each (route, client) bucket is a single {@link AtomicLong} updated with CAS, in the
+ * GCRA form of the token bucket: it holds the theoretical arrival time of the next
+ * request, a request is allowed if it is no more than {@code burst} emission intervals
+ * ahead of now. A bucket idle past {@code idleTimeout} is full and is evicted by a sweep
+ * run at most once per idle timeout.
+ *
+ * Throttled requests get HTTP 429 with Retry-After; all the limited responses carry
+ * X-RateLimit-Limit and X-RateLimit-Remaining.
+ *
+ * Metrics: http.ratelimit.throttled (tag {@code route}), http.ratelimit.clients (buckets in the table).
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final long idleNanos;
+    private final Map<String, RouteLimit> routes = new LinkedHashMap<String, RouteLimit>();
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicLong nextSweep;
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIdleTimeout());
+        this.nextSweep = new AtomicLong(nanoClock.getAsLong() + idleNanos);
+        register(AdmissionController.BALANCE, properties.getBalance());
+        register(AdmissionController.TRANSACTIONS, properties.getTransactions());
+        register(AdmissionController.MONEY_TRANSFER, properties.getMoneyTransfer());
+
+        Gauge.builder("http.ratelimit.clients", buckets, Map::size)
+            .description("Rate limit buckets of the recently active clients")
+            .register(meterRegistry);
+    }
+
+    private void register(String route, RateLimitProperties.Limit limit) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRatePerSecond());
+        Counter throttled = Counter.builder("http.ratelimit.throttled")
+            .description("REST requests rejected by the per-client rate limit")
+            .tag("route", route)
+            .register(meterRegistry);
+        routes.put(route, new RouteLimit(limit.getBurst(), interval, throttled));
+    }
+
+    /**
+     * Take a token from the client bucket of the route.
+     *
+     * @param route the route name, one of the AdmissionController constants
+     * @param client the client identifier
+     * @return the decision, with the tokens left or the time to wait
+     */
+    public Decision tryAcquire(String route, String client) {
+        RouteLimit limit = routes.get(route);
+        if (limit == null) {
+            throw new NoSuchElementException("No rate limit for route: " + route);
+        }
+        long now = nanoClock.getAsLong();
+        sweep(now);
+
+        AtomicLong bucket = buckets.computeIfAbsent(route + ":" + client, key -> new AtomicLong(now));
+        long burstNanos = limit.burst * limit.interval;
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + limit.interval;
+            long allowedAt = next - burstNanos;
+            if (allowedAt > now) {
+                limit.throttled.increment();
+                return new Decision(false, limit.burst, 0, allowedAt - now);
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return new Decision(true, limit.burst, (int) ((now + burstNanos - next) / limit.interval), 0);
+            }
+        }
+    }
+
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        if (now - due >= 0 && nextSweep.compareAndSet(due, now + idleNanos)) {
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> now - bucket.get() > idleNanos);
+            log.debug("Rate limit sweep - evicted {} idle client buckets", before - buckets.size());
+        }
+    }
+
+    /**
+     * Route handler applying the client rate limit before the next handler.
+     *
+     * @param route the route name, one of the AdmissionController constants
+     * @return the rate limit handler
+     */
+    public Handler<RoutingContext> handler(String route) {
+        return ctx -> {
+            if (!properties.isEnabled()) {
+                ctx.next();
+                return;
+            }
+            String client = ctx.request().getHeader(properties.getClientHeader());
+            if (client == null || client.isBlank()) {
+                client = ctx.request().remoteAddress() != null ? ctx.request().remoteAddress().host() : "unknown";
+            }
+
+            Decision decision = tryAcquire(route, client);
+            ctx.response()
+                .putHeader(LIMIT_HEADER, String.valueOf(decision.limit()))
+                .putHeader(REMAINING_HEADER, String.valueOf(decision.remaining()));
+            if (decision.allowed()) {
+                ctx.next();
+                return;
+            }
+
+            log.warn("Rate limit exceeded on route '{}' by client '{}'", route, client);
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(decision.retryAfterNanos() + 999_999_999L));
+            JsonObject errorResponse = new JsonObject()
+                .put("status", StatusConstants.ERROR)
+                .put("requestId", java.util.UUID.randomUUID().toString())
+                .put("message", "ErrorCode " + ErrorCode.RATE_LIMITED + " - Rate limit exceeded on route '" + route + "'");
+
+            ctx.response()
+                .setStatusCode(ErrorCode.toHttpStatusCode(ErrorCode.RATE_LIMITED))
+                .putHeader("Retry-After", String.valueOf(retryAfterSeconds))
+                .putHeader("Content-Type", "application/json")
+                .end(errorResponse.encode());
+        };
+    }
+
+    /**
+     * @param allowed true if the request may proceed
+     * @param limit the bucket size (burst)
+     * @param remaining tokens left after this request
+     * @param retryAfterNanos time until a token is available, when not allowed
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long retryAfterNanos) {
+    }
+
+    private record RouteLimit(int burst, long interval, Counter throttled) {
+    }
+}
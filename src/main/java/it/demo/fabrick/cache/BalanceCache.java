@@ -0,0 +1,180 @@
+package it.demo.fabrick.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.demo.fabrick.dto.rest.SaldoResponseDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process account balance cache with TTL and stale-while-revalidate.
+ *
+ * - fresh (age &lt;= ttl): served from cache
+ * - stale (ttl &lt; age &lt;= ttl + staleWhileRevalidate): served from cache while a
+ *   single background refresh runs
+ * - expired or missing: fetched from Fabrick
+ *
+ * A money transfer invalidates the account entry; refreshes of that account started
+ * before the invalidation are discarded so they cannot put back the old balance.
+ * The invalidation epoch is kept per account in its entry (an invalidated account keeps
+ * an entry without a balance), so transfers do not discard the refreshes of other accounts.
+ *
+ * Metrics: cache.balance.requests tagged with {@code result} hit, stale or miss.
+ */
+@Component
+@Slf4j
+public class BalanceCache {
+
+    /** Lookup outcome */
+    public enum State { FRESH, STALE, MISS }
+
+    /**
+     * Result of a cache lookup.
+     *
+     * @param state the lookup outcome
+     * @param value the cached balance, null on MISS
+     * @param epoch the invalidation epoch of the account to pass to {@link #put} after fetching
+     */
+    public record Lookup(State state, SaldoResponseDto value, long epoch) {
+    }
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long staleWhileRevalidateMillis;
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    @Autowired
+    public BalanceCache(@Value("${cache.balance.enabled:true}") boolean enabled,
+                        @Value("${cache.balance.ttlMillis:10000}") long ttlMillis,
+                        @Value("${cache.balance.staleWhileRevalidateMillis:30000}") long staleWhileRevalidateMillis,
+                        MeterRegistry meterRegistry) {
+        this(enabled, ttlMillis, staleWhileRevalidateMillis, meterRegistry, System::currentTimeMillis);
+    }
+
+    public BalanceCache(boolean enabled, long ttlMillis, long staleWhileRevalidateMillis,
+                        MeterRegistry meterRegistry, LongSupplier clock) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.staleWhileRevalidateMillis = staleWhileRevalidateMillis;
+        this.clock = clock;
+        this.hits = counter(meterRegistry, "hit");
+        this.staleHits = counter(meterRegistry, "stale");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.balance.requests")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Look up the cached balance of an account.
+     *
+     * @param accountId the account ID
+     * @return the lookup result
+     */
+    public Lookup get(String accountId) {
+        Entry entry = enabled ? entries.get(accountId) : null;
+        long epoch = entry != null ? entry.epoch : 0;
+        if (entry != null && entry.value != null) {
+            long age = clock.getAsLong() - entry.storedAt;
+            if (age <= ttlMillis) {
+                hits.increment();
+                return new Lookup(State.FRESH, entry.value, epoch);
+            }
+            if (age <= ttlMillis + staleWhileRevalidateMillis) {
+                staleHits.increment();
+                return new Lookup(State.STALE, entry.value, epoch);
+            }
+        }
+        misses.increment();
+        return new Lookup(State.MISS, null, epoch);
+    }
+
+    /**
+     * Claim the background refresh of a stale entry.
+     *
+     * @param accountId the account ID
+     * @return true if the caller must run the refresh, false if one is already running
+     */
+    public boolean startRefresh(String accountId) {
+        Entry entry = entries.get(accountId);
+        return entry != null && entry.value != null && entry.refreshing.compareAndSet(false, true);
+    }
+
+    /**
+     * Release a refresh claimed with {@link #startRefresh} that did not produce a value.
+     *
+     * @param accountId the account ID
+     */
+    public void refreshFailed(String accountId) {
+        Entry entry = entries.get(accountId);
+        if (entry != null) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Store a balance fetched from Fabrick.
+     * Ignored if the account was invalidated after the lookup that triggered the fetch.
+     *
+     * @param accountId the account ID
+     * @param value the balance
+     * @param epoch the epoch returned by the lookup that triggered the fetch
+     */
+    public void put(String accountId, SaldoResponseDto value, long epoch) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Entry stored = entries.compute(accountId, (id, current) ->
+            epoch == (current != null ? current.epoch : 0) ? new Entry(value, now, epoch) : current);
+        if (stored.value != value) {
+            log.debug("Discarding balance fetched before invalidation for accountId: {}", accountId);
+            refreshFailed(accountId);
+        }
+    }
+
+    /**
+     * Drop the cached balance of an account (e.g. after a money transfer).
+     *
+     * @param accountId the account ID
+     */
+    public void invalidate(String accountId) {
+        Entry previous = entries.get(accountId);
+        entries.compute(accountId, (id, current) -> new Entry(null, 0, (current != null ? current.epoch : 0) + 1));
+        if (previous != null && previous.value != null) {
+            log.info("Balance cache invalidated for accountId: {}", accountId);
+        }
+    }
+
+    private static class Entry {
+
+        /** null once the account is invalidated */
+        final SaldoResponseDto value;
+        final long storedAt;
+        final long epoch;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(SaldoResponseDto value, long storedAt, long epoch) {
+            this.value = value;
+            this.storedAt = storedAt;
+            this.epoch = epoch;
+        }
+    }
+}
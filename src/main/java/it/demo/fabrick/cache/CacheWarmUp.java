@@ -0,0 +1,107 @@
+package it.demo.fabrick.cache;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import it.demo.fabrick.utils.DateRange;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Startup warm-up of the in-memory caches from the local database, run before the verticles
+ * are deployed, so that after a restart on a file-backed database the first requests are
+ * answered from memory instead of from Fabrick or a cold H2 page cache.
+ *
+ * - KnownTransactionIds: all the stored ids, read along the CONTO_TRANSACTION primary key
+ * - TransactionDayCache: the synced days of the last {@code warmup.days} immutable days of
+ *   the account, read with the (ACCOUNT_ID, ACCOUNTING_DATE) index query of TransactionHistoryStore
+ *
+ * A failure is logged and does not stop the startup: the caches fill up on demand.
+ *
+ * Metrics: cache.warmup (time of the warm-up).
+ */
+@Component
+@Slf4j
+public class CacheWarmUp {
+
+    private final KnownTransactionIds knownTransactionIds;
+    private final TransactionHistoryStore transactionHistoryStore;
+    private final TransactionDayCache transactionDayCache;
+    private final String accountId;
+    private final boolean enabled;
+    private final int days;
+    private final Clock clock;
+
+    private final Timer timer;
+
+    @Autowired
+    public CacheWarmUp(MeterRegistry meterRegistry,
+                       KnownTransactionIds knownTransactionIds,
+                       TransactionHistoryStore transactionHistoryStore,
+                       TransactionDayCache transactionDayCache,
+                       @Value("${fabrick.accountId}") String accountId,
+                       @Value("${warmup.enabled:true}") boolean enabled,
+                       @Value("${warmup.days:90}") int days) {
+        this(meterRegistry, knownTransactionIds, transactionHistoryStore, transactionDayCache, accountId, enabled, days,
+            Clock.systemDefaultZone());
+    }
+
+    public CacheWarmUp(MeterRegistry meterRegistry,
+                       KnownTransactionIds knownTransactionIds,
+                       TransactionHistoryStore transactionHistoryStore,
+                       TransactionDayCache transactionDayCache,
+                       String accountId, boolean enabled, int days, Clock clock) {
+        this.knownTransactionIds = knownTransactionIds;
+        this.transactionHistoryStore = transactionHistoryStore;
+        this.transactionDayCache = transactionDayCache;
+        this.accountId = accountId;
+        this.enabled = enabled;
+        this.days = days;
+        this.clock = clock;
+        this.timer = Timer.builder("cache.warmup")
+            .description("Time to warm up the caches from the local database at startup")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @param vertx the Vert.x instance
+     * @return a future completed, never failed, when the caches are warm
+     */
+    public Future<Void> run(Vertx vertx) {
+        if (!enabled) {
+            return Future.succeededFuture();
+        }
+        long start = System.nanoTime();
+        return Future.all(knownTransactionIds.load(vertx), warmUpDays(vertx))
+            .<Void>mapEmpty()
+            .otherwise(e -> {
+                log.warn("Cache warm-up failed, caches are filled on demand", e);
+                return null;
+            })
+            .onComplete(ar -> {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.info("Cache warm-up completed in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            });
+    }
+
+    private Future<Void> warmUpDays(Vertx vertx) {
+        LocalDate today = LocalDate.now(clock);
+        DateRange range = days > 0 ? transactionDayCache.immutableDays(new DateRange(today.minusDays(days - 1L), today)) : null;
+        if (range == null) {
+            return Future.succeededFuture();
+        }
+        return transactionHistoryStore.syncedDays(vertx, accountId, range).map(synced -> {
+            synced.forEach((day, list) -> transactionDayCache.put(accountId, new DateRange(day, day), list));
+            log.info("Warmed up {} synced days of {} in the transaction day cache", synced.size(), range);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,193 @@
+package it.demo.fabrick.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+import it.demo.fabrick.db.DatabasePool;
+import it.demo.fabrick.dto.rest.BonificoRestResponseDto;
+import it.demo.fabrick.error.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Idempotency-Key store for money transfers.
+ *
+ * The first request with a key runs the transfer; duplicates arriving while it
+ * is in flight wait for its result, later duplicates get the stored response
+ * without calling Fabrick. Responses are kept in memory for
+ * {@code memoryTtlMillis} and in the IDEMPOTENCY_KEY table for {@code ttlHours}.
+ *
+ * Only transfers that produced a response (OK or ERROR) are stored: when the
+ * transfer fails before reaching a response the key is released and may be retried.
+ * A key reused with a different request fails with ErrorCode IDEMPOTENCY_KEY_REUSED.
+ *
+ * Metrics: idempotency.requests (tag {@code result} executed, joined, replayed,
+ * mismatch), idempotency.entries (keys in memory).
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private static final String SELECT_SQL =
+        "SELECT REQUEST_FINGERPRINT, RESPONSE_BODY FROM IDEMPOTENCY_KEY "
+            + "WHERE IDEMPOTENCY_KEY = ? AND CREATED_AT > DATEADD('HOUR', ?, CURRENT_TIMESTAMP)";
+
+    private static final String MERGE_SQL =
+        "MERGE INTO IDEMPOTENCY_KEY (IDEMPOTENCY_KEY, REQUEST_FINGERPRINT, RESPONSE_BODY, CREATED_AT) "
+            + "KEY (IDEMPOTENCY_KEY) VALUES (?, ?, ?, CURRENT_TIMESTAMP)";
+
+    private final ObjectMapper objectMapper;
+    private final DatabasePool databasePool;
+    private final long memoryTtlMillis;
+    private final int ttlHours;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private final Counter executed;
+    private final Counter joined;
+    private final Counter replayed;
+    private final Counter mismatches;
+
+    public IdempotencyStore(ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            DatabasePool databasePool,
+                            @Value("${idempotency.memoryTtlMillis:600000}") long memoryTtlMillis,
+                            @Value("${idempotency.ttlHours:24}") int ttlHours) {
+        this.objectMapper = objectMapper;
+        this.databasePool = databasePool;
+        this.memoryTtlMillis = memoryTtlMillis;
+        this.ttlHours = ttlHours;
+        this.executed = counter(meterRegistry, "executed");
+        this.joined = counter(meterRegistry, "joined");
+        this.replayed = counter(meterRegistry, "replayed");
+        this.mismatches = counter(meterRegistry, "mismatch");
+        Gauge.builder("idempotency.entries", entries, Map::size)
+            .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("idempotency.requests")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the transfer for the key, or return the result of the transfer already
+     * run (or running) with it.
+     *
+     * @param context the caller context, on which the returned future completes
+     * @param key the Idempotency-Key sent by the client
+     * @param fingerprint hash of the request, to detect a key reused for another request
+     * @param call the transfer to run when the key is new
+     * @return a future completed with the transfer response
+     */
+    public Future<BonificoRestResponseDto> execute(Context context, String key, String fingerprint,
+                                                   Supplier<Future<BonificoRestResponseDto>> call) {
+        Entry entry = new Entry(fingerprint);
+        Entry existing = entries.putIfAbsent(key, entry);
+
+        Future<BonificoRestResponseDto> result;
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                mismatches.increment();
+                return Future.failedFuture(keyReused(key));
+            }
+            (existing.result.future().isComplete() ? replayed : joined).increment();
+            log.info("Idempotency-Key {} already used, returning the result of the first attempt", key);
+            result = existing.result.future();
+        } else {
+            Vertx vertx = context.owner();
+            lookup(vertx, key).compose(stored -> {
+                if (stored == null) {
+                    executed.increment();
+                    return call.get().onSuccess(response -> save(vertx, key, fingerprint, response));
+                }
+                if (!stored.getString("REQUEST_FINGERPRINT").equals(fingerprint)) {
+                    mismatches.increment();
+                    return Future.failedFuture(keyReused(key));
+                }
+                replayed.increment();
+                log.info("Idempotency-Key {} found in store, returning the stored response", key);
+                return Future.succeededFuture(readResponse(stored.getString("RESPONSE_BODY")));
+            }).onComplete(ar -> {
+                if (ar.succeeded()) {
+                    vertx.setTimer(memoryTtlMillis, id -> entries.remove(key, entry));
+                } else {
+                    // no response: release the key so that the client can retry
+                    entries.remove(key, entry);
+                }
+                entry.result.handle(ar);
+            });
+            result = entry.result.future();
+        }
+
+        Promise<BonificoRestResponseDto> local = Promise.promise();
+        result.onComplete(ar -> context.runOnContext(v -> local.handle(ar)));
+        return local.future();
+    }
+
+    private Future<Row> lookup(Vertx vertx, String key) {
+        return databasePool.withConnection(vertx,
+                conn -> conn.preparedQuery(SELECT_SQL).execute(Tuple.of(key, -ttlHours)))
+            .map(rows -> rows.size() == 0 ? null : rows.iterator().next())
+            .otherwise(e -> {
+                // the in-memory store still protects against duplicates in this instance
+                log.warn("Idempotency-Key lookup failed for key: {}", key, e);
+                return null;
+            });
+    }
+
+    private void save(Vertx vertx, String key, String fingerprint, BonificoRestResponseDto response) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            log.error("Cannot serialize response for Idempotency-Key: {}", key, e);
+            return;
+        }
+        databasePool.withConnection(vertx,
+                conn -> conn.preparedQuery(MERGE_SQL).execute(Tuple.of(key, fingerprint, body)))
+            .onFailure(e -> log.error("Cannot store response for Idempotency-Key: {}", key, e));
+    }
+
+    private BonificoRestResponseDto readResponse(String body) {
+        try {
+            return objectMapper.readValue(body, BonificoRestResponseDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid stored idempotent response", e);
+        }
+    }
+
+    private static ReplyException keyReused(String key) {
+        String errorMessage = "ErrorCode " + ErrorCode.IDEMPOTENCY_KEY_REUSED
+            + " - Idempotency-Key " + key + " was already used for a different request";
+        return new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.IDEMPOTENCY_KEY_REUSED, errorMessage);
+    }
+
+    private static class Entry {
+
+        final String fingerprint;
+        final Promise<BonificoRestResponseDto> result = Promise.promise();
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package it.demo.fabrick.cache;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+import it.demo.fabrick.db.DatabasePool;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory set of the TRANSACTION_IDs stored in CONTO_TRANSACTION, so that
+ * TransactionPersistenceVerticle drops already persisted transactions before any SQL runs.
+ *
+ * Ids are kept as 64-bit fingerprints in an open-addressing table (8 bytes per slot,
+ * at most half full): a lookup of an id not stored matches another fingerprint with
+ * probability ids / 2^64, which is the false-positive rate reported. An id missing
+ * from the set (not loaded yet, or beyond {@code maxIds}) is just merged in the database.
+ *
+ * Loaded from the database at startup, in pages along the primary key, and updated
+ * after each successful write.
+ *
+ * Metrics: known.transactions.ids, known.transactions.bytes,
+ * known.transactions.false.positive.rate, known.transactions.hits.
+ */
+@Component
+@Slf4j
+public class KnownTransactionIds {
+
+    private static final String LOAD_SQL =
+        "SELECT TRANSACTION_ID FROM CONTO_TRANSACTION WHERE TRANSACTION_ID > ? ORDER BY TRANSACTION_ID LIMIT ?";
+
+    private static final int LOAD_PAGE_SIZE = 10000;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double TWO_POW_64 = 18446744073709551616.0;
+
+    private final boolean enabled;
+    private final int maxIds;
+    private final DatabasePool databasePool;
+
+    private long[] table = new long[INITIAL_CAPACITY];
+    private int size;
+    private Future<Void> loading;
+
+    private final Counter hits;
+
+    public KnownTransactionIds(MeterRegistry meterRegistry,
+                               DatabasePool databasePool,
+                               @Value("${transactions.persistence.knownIds.enabled:true}") boolean enabled,
+                               @Value("${transactions.persistence.knownIds.maxIds:1000000}") int maxIds) {
+        this.enabled = enabled;
+        this.maxIds = maxIds;
+        this.databasePool = databasePool;
+        this.hits = Counter.builder("known.transactions.hits")
+            .description("Transactions dropped before persistence because already stored")
+            .register(meterRegistry);
+        Gauge.builder("known.transactions.ids", this, KnownTransactionIds::size)
+            .register(meterRegistry);
+        Gauge.builder("known.transactions.bytes", this, KnownTransactionIds::memoryBytes)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("known.transactions.false.positive.rate", this, KnownTransactionIds::falsePositiveRate)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Load the stored ids, once; further calls return the same future.
+     * A failure is logged and leaves the set with the ids loaded so far.
+     *
+     * @param vertx the Vert.x instance
+     * @return a future completed when loaded
+     */
+    public synchronized Future<Void> load(Vertx vertx) {
+        if (loading == null) {
+            long start = System.currentTimeMillis();
+            loading = enabled
+                ? loadPage(vertx, "")
+                    .onSuccess(v -> log.info("Loaded {} known transaction ids in {} ms, {} bytes",
+                        size(), System.currentTimeMillis() - start, memoryBytes()))
+                    .otherwise(e -> {
+                        log.warn("Known transaction ids not loaded, {} ids so far", size(), e);
+                        return null;
+                    })
+                : Future.succeededFuture();
+        }
+        return loading;
+    }
+
+    private Future<Void> loadPage(Vertx vertx, String after) {
+        return databasePool.withConnection(vertx,
+                conn -> conn.preparedQuery(LOAD_SQL).execute(Tuple.of(after, LOAD_PAGE_SIZE)))
+            .compose(rows -> {
+                String last = null;
+                for (Row row : rows) {
+                    last = row.getString(0);
+                    add(last);
+                }
+                if (rows.size() < LOAD_PAGE_SIZE || size() >= maxIds) {
+                    return Future.succeededFuture();
+                }
+                return loadPage(vertx, last);
+            });
+    }
+
+    /**
+     * @param transactionId the transaction ID
+     * @return true if the transaction is (almost certainly) stored, counted as a hit
+     */
+    public boolean contains(String transactionId) {
+        if (!enabled || transactionId == null) {
+            return false;
+        }
+        boolean found;
+        synchronized (this) {
+            found = slot(fingerprint(transactionId)) >= 0;
+        }
+        if (found) {
+            hits.increment();
+        }
+        return found;
+    }
+
+    /**
+     * Add stored transaction IDs; ignored beyond maxIds.
+     *
+     * @param transactionIds the stored transaction IDs
+     */
+    public void addAll(Collection<String> transactionIds) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            transactionIds.forEach(this::add);
+        }
+    }
+
+    private synchronized void add(String transactionId) {
+        if (transactionId == null || size >= maxIds) {
+            return;
+        }
+        long fingerprint = fingerprint(transactionId);
+        int slot = slot(fingerprint);
+        if (slot >= 0) {
+            return;
+        }
+        table[-slot - 1] = fingerprint;
+        size++;
+        if (size * 2 > table.length) {
+            resize();
+        }
+    }
+
+    /**
+     * @return the slot of the fingerprint, or (-insertion slot - 1) if absent
+     */
+    private int slot(long fingerprint) {
+        int mask = table.length - 1;
+        int i = (int) fingerprint & mask;
+        while (table[i] != 0) {
+            if (table[i] == fingerprint) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -i - 1;
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        for (long fingerprint : old) {
+            if (fingerprint != 0) {
+                table[-slot(fingerprint) - 1] = fingerprint;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long memoryBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /**
+     * @return the probability that an id not stored is reported as stored
+     */
+    public synchronized double falsePositiveRate() {
+        return size / TWO_POW_64;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, with the MurmurHash3 finalizer; never 0 (empty slot).
+     */
+    static long fingerprint(String transactionId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < transactionId.length(); i++) {
+            hash ^= transactionId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,88 @@
+package it.demo.fabrick.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-flight coalescing of identical in-flight requests.
+ *
+ * The first caller for a key (the leader) runs the call; callers arriving with
+ * the same key while it is in flight share its result instead of issuing their
+ * own event-bus message and upstream call. The key is released as soon as the
+ * call completes, so nothing is cached beyond the in-flight window.
+ *
+ * Shared by all HttpServerVerticle instances: results are handed back on each
+ * caller's own context.
+ *
+ * Metrics:
+ * - http.coalescing.requests: calls tagged with {@code role} leader or follower
+ * - http.coalescing.inflight: keys currently in flight
+ */
+@Component
+@Slf4j
+public class RequestCoalescer {
+
+    private final Map<String, Future<?>> inFlight = new ConcurrentHashMap<String, Future<?>>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder("http.coalescing.requests")
+            .tag("role", "leader")
+            .register(meterRegistry);
+        this.followers = Counter.builder("http.coalescing.requests")
+            .tag("role", "follower")
+            .register(meterRegistry);
+        Gauge.builder("http.coalescing.inflight", inFlight, Map::size)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the call for the key, or join the call already in flight for it.
+     *
+     * @param context the caller context, on which the returned future completes
+     * @param key the request key (e.g. operation, accountId and date range)
+     * @param call the call to run when no identical request is in flight
+     * @return a future completed with the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Future<T> execute(Context context, String key, Supplier<Future<T>> call) {
+        Promise<T> shared = Promise.promise();
+        Future<T> existing = (Future<T>) inFlight.putIfAbsent(key, shared.future());
+
+        Future<T> result;
+        if (existing != null) {
+            followers.increment();
+            log.debug("Coalescing request onto in-flight call for key: {}", key);
+            result = existing;
+        } else {
+            leaders.increment();
+            result = shared.future();
+            Future<T> upstream;
+            try {
+                upstream = call.get();
+            } catch (RuntimeException e) {
+                upstream = Future.failedFuture(e);
+            }
+            upstream.onComplete(ar -> {
+                inFlight.remove(key, shared.future());
+                shared.handle(ar);
+            });
+        }
+
+        Promise<T> local = Promise.promise();
+        result.onComplete(ar -> context.runOnContext(v -> local.handle(ar)));
+        return local.future();
+    }
+}
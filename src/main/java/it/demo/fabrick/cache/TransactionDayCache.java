@@ -0,0 +1,232 @@
+package it.demo.fabrick.cache;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.utils.DateRange;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transactions cache bucketed by (accountId, accountingDate).
+ *
+ * Past accounting days never change, so once fetched they are served from here.
+ * The last {@code mutableDays} days (today and yesterday by default) are never
+ * cached and always fetched from Fabrick. Empty days are cached too.
+ *
+ * The cache is bounded by the total number of cached transactions (an empty day
+ * counts as one); least recently used days are evicted first.
+ *
+ * Cached lists are shared by reference with the responses: they must not be modified.
+ *
+ * Metrics: cache.transactions.days (tag {@code result} hit/miss),
+ * cache.transactions.evictions, cache.transactions.size (cached days),
+ * cache.transactions.weight (cached transactions).
+ */
+@Component
+@Slf4j
+public class TransactionDayCache {
+
+    /**
+     * Result of a range lookup.
+     *
+     * @param cachedDays transactions of the days found in cache
+     * @param missing contiguous ranges to fetch from Fabrick, newest first
+     */
+    public record Lookup(Map<LocalDate, List<ListaTransactionDto>> cachedDays, List<DateRange> missing) {
+    }
+
+    private final boolean enabled;
+    private final int mutableDays;
+    private final long maxWeight;
+    private final Clock clock;
+
+    /** access-ordered: iteration starts from the least recently used day */
+    private final LinkedHashMap<String, List<ListaTransactionDto>> days =
+        new LinkedHashMap<String, List<ListaTransactionDto>>(256, 0.75f, true);
+    private long weight;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public TransactionDayCache(@Value("${cache.transactions.enabled:true}") boolean enabled,
+                               @Value("${cache.transactions.mutableDays:2}") int mutableDays,
+                               @Value("${cache.transactions.maxWeight:100000}") long maxWeight,
+                               MeterRegistry meterRegistry) {
+        this(enabled, mutableDays, maxWeight, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    public TransactionDayCache(boolean enabled, int mutableDays, long maxWeight,
+                               MeterRegistry meterRegistry, Clock clock) {
+        this.enabled = enabled;
+        this.mutableDays = mutableDays;
+        this.maxWeight = maxWeight;
+        this.clock = clock;
+        this.hits = Counter.builder("cache.transactions.days").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.transactions.days").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("cache.transactions.evictions").register(meterRegistry);
+        Gauge.builder("cache.transactions.size", this, TransactionDayCache::size).register(meterRegistry);
+        Gauge.builder("cache.transactions.weight", this, TransactionDayCache::weight).register(meterRegistry);
+    }
+
+    /**
+     * Split a range into the days served from cache and the ranges to fetch.
+     *
+     * @param accountId the account ID
+     * @param from first accounting date
+     * @param to last accounting date
+     * @return the cached days and the missing ranges
+     */
+    public Lookup get(String accountId, LocalDate from, LocalDate to) {
+        Map<LocalDate, List<ListaTransactionDto>> cached = new HashMap<LocalDate, List<ListaTransactionDto>>();
+        List<DateRange> missing = new ArrayList<DateRange>();
+        LocalDate missingTo = null;
+
+        synchronized (this) {
+            for (LocalDate day = to; !day.isBefore(from); day = day.minusDays(1)) {
+                List<ListaTransactionDto> list = enabled && isImmutable(day) ? days.get(key(accountId, day)) : null;
+                if (list != null) {
+                    cached.put(day, list);
+                    if (missingTo != null) {
+                        missing.add(new DateRange(day.plusDays(1), missingTo));
+                        missingTo = null;
+                    }
+                } else if (missingTo == null) {
+                    missingTo = day;
+                }
+            }
+        }
+        if (missingTo != null) {
+            missing.add(new DateRange(from, missingTo));
+        }
+
+        hits.increment(cached.size());
+        misses.increment(ChronoUnit.DAYS.between(from, to) + 1 - cached.size());
+        return new Lookup(cached, missing);
+    }
+
+    /**
+     * Store the immutable days of a range fetched from Fabrick.
+     * Days of the range without transactions are stored as empty.
+     *
+     * @param accountId the account ID
+     * @param range the fetched range
+     * @param fetched the transactions returned by Fabrick for the range
+     */
+    public void put(String accountId, DateRange range, List<ListaTransactionDto> fetched) {
+        if (!enabled) {
+            return;
+        }
+        Map<LocalDate, List<ListaTransactionDto>> buckets = new HashMap<LocalDate, List<ListaTransactionDto>>();
+        bucketByDay(fetched, range, buckets, new ArrayList<ListaTransactionDto>());
+
+        synchronized (this) {
+            for (LocalDate day = range.from(); !day.isAfter(range.to()); day = day.plusDays(1)) {
+                if (!isImmutable(day)) {
+                    continue;
+                }
+                List<ListaTransactionDto> list = buckets.getOrDefault(day, Collections.emptyList());
+                List<ListaTransactionDto> previous = days.put(key(accountId, day), Collections.unmodifiableList(list));
+                weight += weightOf(list) - (previous != null ? weightOf(previous) : 0);
+            }
+            evict();
+        }
+    }
+
+    /**
+     * Immutable part of a range: the days before the last {@code mutableDays} days.
+     *
+     * @param range the range
+     * @return the immutable days of the range, or null if all its days may still change
+     */
+    public DateRange immutableDays(DateRange range) {
+        LocalDate lastImmutable = LocalDate.now(clock).minusDays(mutableDays);
+        if (lastImmutable.isBefore(range.from())) {
+            return null;
+        }
+        return lastImmutable.isBefore(range.to()) ? new DateRange(range.from(), lastImmutable) : range;
+    }
+
+    /**
+     * Group transactions by accounting date.
+     *
+     * @param transactions the transactions to group, order is kept within a day
+     * @param range days outside the range go to {@code undated}
+     * @param buckets output: transactions per day
+     * @param undated output: transactions without a parseable accounting date in the range
+     */
+    public static void bucketByDay(List<ListaTransactionDto> transactions, DateRange range,
+                                   Map<LocalDate, List<ListaTransactionDto>> buckets,
+                                   List<ListaTransactionDto> undated) {
+        if (transactions == null) {
+            return;
+        }
+        for (ListaTransactionDto transaction : transactions) {
+            LocalDate day = accountingDay(transaction);
+            if (day != null && range.contains(day)) {
+                buckets.computeIfAbsent(day, d -> new ArrayList<ListaTransactionDto>()).add(transaction);
+            } else {
+                undated.add(transaction);
+            }
+        }
+    }
+
+    private static LocalDate accountingDay(ListaTransactionDto transaction) {
+        String date = transaction.getAccountingDate();
+        if (date == null || date.length() < 10) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.substring(0, 10));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private boolean isImmutable(LocalDate day) {
+        return day.isBefore(LocalDate.now(clock).minusDays(mutableDays - 1L));
+    }
+
+    private void evict() {
+        Iterator<List<ListaTransactionDto>> eldest = days.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= weightOf(eldest.next());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long weightOf(List<ListaTransactionDto> list) {
+        return Math.max(1, list.size());
+    }
+
+    private static String key(String accountId, LocalDate day) {
+        return accountId + ":" + day;
+    }
+
+    private synchronized double size() {
+        return days.size();
+    }
+
+    private synchronized double weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,185 @@
+package it.demo.fabrick.cache;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+import it.demo.fabrick.db.DatabasePool;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.utils.DateRange;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local transaction history over CONTO_TRANSACTION.
+ *
+ * TransactionPersistenceVerticle marks an accounting day as synced in
+ * CONTO_TRANSACTION_SYNC once all the transactions Fabrick returned for it are
+ * stored; only immutable days are marked. Synced days are answered here with an
+ * indexed range query (ACCOUNT_ID, ACCOUNTING_DATE), the other days still go to Fabrick.
+ *
+ * Within a day transactions are ordered by transactionId (Fabrick order is not stored).
+ *
+ * Metrics: history.transactions.days (tag {@code result} hit/miss).
+ */
+@Component
+@Slf4j
+public class TransactionHistoryStore {
+
+    private static final String SYNCED_DAYS_SQL =
+        "SELECT ACCOUNTING_DATE FROM CONTO_TRANSACTION_SYNC "
+            + "WHERE ACCOUNT_ID = ? AND ACCOUNTING_DATE BETWEEN ? AND ?";
+
+    private static final String TRANSACTIONS_SQL =
+        "SELECT TRANSACTION_ID, OPERATION_ID, ACCOUNTING_DATE, VALUE_DATE, TYPE_ENUMERATION, TYPE_VALUE, "
+            + "AMOUNT, CURRENCY, DESCRIPTION FROM CONTO_TRANSACTION "
+            + "WHERE ACCOUNT_ID = ? AND ACCOUNTING_DATE BETWEEN ? AND ? "
+            + "ORDER BY ACCOUNTING_DATE DESC, TRANSACTION_ID";
+
+    private final boolean enabled;
+    private final DatabasePool databasePool;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public TransactionHistoryStore(MeterRegistry meterRegistry,
+                                   @Value("${history.enabled:true}") boolean enabled,
+                                   DatabasePool databasePool) {
+        this.enabled = enabled;
+        this.databasePool = databasePool;
+        this.hits = Counter.builder("history.transactions.days").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("history.transactions.days").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Split ranges into the synced days, read from the database, and the ranges still to fetch.
+     * A database failure is logged and leaves all the ranges to fetch.
+     *
+     * @param vertx the Vert.x instance
+     * @param accountId the account ID
+     * @param ranges the ranges to look up, newest first
+     * @return the synced days with their transactions and the missing ranges, newest first
+     */
+    public Future<TransactionDayCache.Lookup> find(Vertx vertx, String accountId, List<DateRange> ranges) {
+        if (!enabled || ranges.isEmpty()) {
+            return Future.succeededFuture(new TransactionDayCache.Lookup(Collections.emptyMap(), ranges));
+        }
+        LocalDate from = ranges.get(0).from();
+        LocalDate to = ranges.get(0).to();
+        for (DateRange range : ranges) {
+            from = range.from().isBefore(from) ? range.from() : from;
+            to = range.to().isAfter(to) ? range.to() : to;
+        }
+        return read(vertx, accountId, new DateRange(from, to))
+            .map(days -> split(ranges, days))
+            .recover(e -> {
+                log.warn("Transaction history unavailable, fetching {} from Fabrick", ranges, e);
+                return Future.succeededFuture(new TransactionDayCache.Lookup(Collections.emptyMap(), ranges));
+            });
+    }
+
+    /**
+     * Read the synced days of a range, e.g. to warm up TransactionDayCache at startup;
+     * not counted in the hit/miss metrics.
+     *
+     * @param vertx the Vert.x instance
+     * @param accountId the account ID
+     * @param range the range
+     * @return the synced days with their transactions, empty if disabled
+     */
+    public Future<Map<LocalDate, List<ListaTransactionDto>>> syncedDays(Vertx vertx, String accountId, DateRange range) {
+        if (!enabled) {
+            return Future.succeededFuture(Collections.emptyMap());
+        }
+        return read(vertx, accountId, range);
+    }
+
+    private Future<Map<LocalDate, List<ListaTransactionDto>>> read(Vertx vertx, String accountId, DateRange range) {
+        Tuple params = Tuple.of(accountId, range.from().toString(), range.to().toString());
+
+        return databasePool.withConnection(vertx, conn -> conn.preparedQuery(SYNCED_DAYS_SQL).execute(params)
+            .compose(syncedRows -> {
+                Map<LocalDate, List<ListaTransactionDto>> days = new HashMap<LocalDate, List<ListaTransactionDto>>();
+                syncedRows.forEach(row -> days.put(date(row.getValue("ACCOUNTING_DATE")), new ArrayList<ListaTransactionDto>()));
+                if (days.isEmpty()) {
+                    return Future.succeededFuture(days);
+                }
+                return conn.preparedQuery(TRANSACTIONS_SQL).execute(params).map(transactionRows -> {
+                    for (Row row : transactionRows) {
+                        List<ListaTransactionDto> day = days.get(date(row.getValue("ACCOUNTING_DATE")));
+                        if (day != null) {
+                            day.add(toDto(row));
+                        }
+                    }
+                    return days;
+                });
+            }));
+    }
+
+    private TransactionDayCache.Lookup split(List<DateRange> ranges, Map<LocalDate, List<ListaTransactionDto>> synced) {
+        Map<LocalDate, List<ListaTransactionDto>> days = new HashMap<LocalDate, List<ListaTransactionDto>>();
+        List<DateRange> missing = new ArrayList<DateRange>();
+        long total = 0;
+        for (DateRange range : ranges) {
+            LocalDate missingTo = null;
+            for (LocalDate day = range.to(); !day.isBefore(range.from()); day = day.minusDays(1)) {
+                if (synced.containsKey(day)) {
+                    days.put(day, synced.get(day));
+                    if (missingTo != null) {
+                        missing.add(new DateRange(day.plusDays(1), missingTo));
+                        missingTo = null;
+                    }
+                } else if (missingTo == null) {
+                    missingTo = day;
+                }
+            }
+            if (missingTo != null) {
+                missing.add(new DateRange(range.from(), missingTo));
+            }
+            total += ChronoUnit.DAYS.between(range.from(), range.to()) + 1;
+        }
+        hits.increment(days.size());
+        misses.increment(total - days.size());
+        return new TransactionDayCache.Lookup(days, missing);
+    }
+
+    private static LocalDate date(Object value) {
+        return LocalDate.parse(String.valueOf(value).substring(0, 10));
+    }
+
+    private static ListaTransactionDto toDto(Row row) {
+        ListaTransactionDto dto = new ListaTransactionDto();
+        dto.setTransactionId(row.getString("TRANSACTION_ID"));
+        dto.setOperationId(row.getString("OPERATION_ID"));
+        dto.setAccountingDate(date(row.getValue("ACCOUNTING_DATE")).toString());
+        if (row.getValue("VALUE_DATE") != null) {
+            dto.setValueDate(date(row.getValue("VALUE_DATE")).toString());
+        }
+        if (row.getString("TYPE_ENUMERATION") != null || row.getString("TYPE_VALUE") != null) {
+            ListaTransactionDto.Type type = dto.new Type();
+            type.setEnumeration(row.getString("TYPE_ENUMERATION"));
+            type.setValue(row.getString("TYPE_VALUE"));
+            dto.setType(type);
+        }
+        // AMOUNT is a DOUBLE: restore the 2 decimals of the Fabrick amounts, so that -800.00 is not served as -800.0
+        Number amount = (Number) row.getValue("AMOUNT");
+        dto.setAmount(amount != null ? BigDecimal.valueOf(amount.doubleValue()).setScale(2, RoundingMode.HALF_UP) : null);
+        dto.setCurrency(row.getString("CURRENCY"));
+        dto.setDescription(row.getString("DESCRIPTION"));
+        return dto;
+    }
+}
@@ -0,0 +1,150 @@
+package it.demo.fabrick.cache;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Vertx;
+import it.demo.fabrick.dto.rest.BonificoRestResponseDto;
+import it.demo.fabrick.dto.rest.TransferJobDto;
+import it.demo.fabrick.utils.StatusConstants;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Status of asynchronous money transfers, shared by all HttpServerVerticle instances.
+ *
+ * A job is PENDING until BonificoVerticle replies, then EXECUTED (OK response),
+ * FAILED (ERROR response or event bus failure) or UNKNOWN: the transfer may have been
+ * executed by Fabrick (the validation enquiry after a 500/504 gave no answer, or the
+ * deadline expired with the transfer in flight), so it must not be resent blindly.
+ * Completed jobs are kept for {@code transfer.jobs.ttlMillis} for polling, then dropped.
+ *
+ * Stored DTOs are replaced on completion, never modified, so they can be
+ * serialized while another thread completes the job.
+ *
+ * Metrics: transfer.jobs.pending, transfer.jobs.completed (tag {@code status}).
+ */
+@Component
+@Slf4j
+public class TransferJobStore {
+
+    /** ERROR responses of the validation enquiry, sent after Fabrick may have executed the transfer */
+    private static final Set<String> UNKNOWN_OUTCOMES = Set.of(
+        StatusConstants.ERROR_CANNOT_EXTRACT_ACCOUNT_ID,
+        StatusConstants.ERROR_VALIDATION_ENQUIRY_FAILED,
+        StatusConstants.ERROR_VALIDATION_PARSING_FAILED,
+        StatusConstants.ERROR_VALIDATION_UNAVAILABLE);
+
+    private final long ttlMillis;
+    private final Map<String, TransferJobDto> jobs = new ConcurrentHashMap<String, TransferJobDto>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter executed;
+    private final Counter failed;
+    private final Counter unknown;
+
+    public TransferJobStore(@Value("${transfer.jobs.ttlMillis:3600000}") long ttlMillis,
+                            MeterRegistry meterRegistry) {
+        this.ttlMillis = ttlMillis;
+        this.executed = Counter.builder("transfer.jobs.completed")
+            .tag("status", StatusConstants.STATUS_EXECUTED)
+            .register(meterRegistry);
+        this.failed = Counter.builder("transfer.jobs.completed")
+            .tag("status", StatusConstants.STATUS_FAILED)
+            .register(meterRegistry);
+        this.unknown = Counter.builder("transfer.jobs.completed")
+            .tag("status", StatusConstants.STATUS_UNKNOWN)
+            .register(meterRegistry);
+        Gauge.builder("transfer.jobs.pending", pending, AtomicInteger::get)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Register a new PENDING job.
+     *
+     * @param transferId the transfer id returned to the client
+     * @return the job
+     */
+    public TransferJobDto create(String transferId) {
+        TransferJobDto job = new TransferJobDto(transferId, StatusConstants.STATUS_PENDING,
+            "Transfer accepted", Instant.now().toString(), null, null);
+        jobs.put(transferId, job);
+        pending.incrementAndGet();
+        return job;
+    }
+
+    /**
+     * Record the transfer response.
+     *
+     * @param vertx used to schedule the job removal
+     * @param transferId the transfer id
+     * @param result the BonificoVerticle response
+     */
+    public void complete(Vertx vertx, String transferId, BonificoRestResponseDto result) {
+        String status;
+        if (StatusConstants.OK.equals(result.getStatus())) {
+            status = StatusConstants.STATUS_EXECUTED;
+        } else if (UNKNOWN_OUTCOMES.contains(result.getMessage())) {
+            status = StatusConstants.STATUS_UNKNOWN;
+        } else {
+            status = StatusConstants.STATUS_FAILED;
+        }
+        finish(vertx, transferId, status, result.getMessage(), result);
+    }
+
+    /**
+     * Record a transfer whose outcome is unknown, e.g. still in flight when its deadline expired.
+     *
+     * @param vertx used to schedule the job removal
+     * @param transferId the transfer id
+     * @param message the status message
+     */
+    public void unknown(Vertx vertx, String transferId, String message) {
+        finish(vertx, transferId, StatusConstants.STATUS_UNKNOWN, message, null);
+    }
+
+    /**
+     * Record a transfer that failed without a response.
+     *
+     * @param vertx used to schedule the job removal
+     * @param transferId the transfer id
+     * @param errorMessage the failure message
+     */
+    public void fail(Vertx vertx, String transferId, String errorMessage) {
+        finish(vertx, transferId, StatusConstants.STATUS_FAILED, errorMessage, null);
+    }
+
+    /**
+     * @param transferId the transfer id
+     * @return the job, null if unknown or expired
+     */
+    public TransferJobDto get(String transferId) {
+        return jobs.get(transferId);
+    }
+
+    private void finish(Vertx vertx, String transferId, String status, String message,
+                        BonificoRestResponseDto result) {
+        TransferJobDto job = jobs.get(transferId);
+        if (job == null) {
+            return;
+        }
+        jobs.put(transferId, new TransferJobDto(transferId, status, message, job.getCreatedAt(),
+            Instant.now().toString(), result));
+        pending.decrementAndGet();
+        switch (status) {
+            case StatusConstants.STATUS_EXECUTED -> executed.increment();
+            case StatusConstants.STATUS_UNKNOWN -> unknown.increment();
+            default -> failed.increment();
+        }
+        log.info("Async transfer {} completed with status {}", transferId, status);
+
+        vertx.setTimer(ttlMillis, id -> jobs.remove(transferId));
+    }
+}
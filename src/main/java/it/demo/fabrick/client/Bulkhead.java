@@ -0,0 +1,40 @@
+package it.demo.fabrick.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded number of concurrent calls to one Fabrick endpoint, shared by all
+ * clients with the same name. Calls over the limit are rejected at once
+ * instead of queueing.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    public Bulkhead(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    /**
+     * @return true if a permit was taken and must be released with {@link #release()}
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inUse.get();
+            if (current >= maxConcurrentCalls) {
+                return false;
+            }
+        } while (!inUse.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release() {
+        inUse.decrementAndGet();
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+}
@@ -0,0 +1,96 @@
+package it.demo.fabrick.client;
+
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker for one Fabrick endpoint, shared by all clients with the same name.
+ *
+ * - CLOSED: calls go through; {@code maxFailures} consecutive failures open the circuit
+ * - OPEN: calls fail fast for {@code resetTimeoutMillis}, then the circuit becomes half-open
+ * - HALF_OPEN: a single trial call goes through; its success closes the circuit,
+ *   its failure opens it again
+ *
+ * Thread safe: the verticle instances calling the endpoint run on different event loops.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /** Circuit state, the ordinal is exported as the fabrick.circuit.state gauge */
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String name;
+    private final int maxFailures;
+    private final long resetTimeoutMillis;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int maxFailures, long resetTimeoutMillis, LongSupplier clock) {
+        this.name = name;
+        this.maxFailures = maxFailures;
+        this.resetTimeoutMillis = resetTimeoutMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if the call may go through, false if it must fail fast
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < resetTimeoutMillis) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * Record a successful call.
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Record a failed call (connection error or HTTP 5xx).
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            open();
+        } else if (state == State.CLOSED && ++failures >= maxFailures) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        failures = 0;
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        log.warn("Fabrick circuit '{}' {} -> {}", name, state, next);
+        state = next;
+    }
+}
@@ -0,0 +1,178 @@
+package it.demo.fabrick.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.client.WebClient;
+import it.demo.fabrick.admission.ConcurrencyLimiter;
+import it.demo.fabrick.config.FabrickClientProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the long-lived {@link FabrickHttpClient} used by each calling verticle
+ * and reports the connection pool usage of all clients sharing the same name.
+ *
+ * Metrics (tagged with {@code client}):
+ * - fabrick.client.requests.active: requests currently holding or waiting for a pooled connection
+ * - fabrick.client.pool.capacity: total pool size across the open clients
+ * - fabrick.client.requests: upstream call latency, tagged with {@code outcome}
+ * - fabrick.circuit.state: circuit state (0 closed, 1 half-open, 2 open)
+ * - fabrick.client.rejections: calls rejected locally, tagged with {@code reason} circuit_open, bulkhead_full or limit_reached
+ * - fabrick.client.limit: current adaptive concurrency limit
+ * - fabrick.client.limit.queue: calls waiting for the adaptive limit
+ * - fabrick.client.retries: idempotent GETs retried after a connection error or 502/503/504
+ * - fabrick.client.retry.budget.exhausted: retries or hedges skipped because the retry budget was empty
+ * - fabrick.client.hedges: hedged requests sent, tagged with {@code result} sent or won
+ *
+ * Each client name (one per Fabrick endpoint) has its own circuit breaker, bulkhead,
+ * retry budget and latency window, shared by all the verticle instances calling that endpoint.
+ */
+@Component
+@Slf4j
+public class FabrickClientFactory {
+
+    private final FabrickClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PoolUsage> usages = new ConcurrentHashMap<String, PoolUsage>();
+
+    public FabrickClientFactory(FabrickClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Create a pooled client bound to the given Vert.x instance.
+     * The caller owns the client and must close it when the verticle is undeployed.
+     *
+     * @param vertx the Vert.x instance of the calling verticle
+     * @param name the client name used to tag metrics (e.g. "saldo")
+     * @param apiKey the Fabrick Api-Key header value
+     * @param authSchema the Fabrick Auth-Schema header value
+     * @return a new FabrickHttpClient
+     */
+    public FabrickHttpClient create(Vertx vertx, String name, String apiKey, String authSchema) {
+        WebClient webClient = WebClient.create(vertx, properties.toWebClientOptions());
+        PoolUsage usage = usages.computeIfAbsent(name, this::registerUsage);
+        usage.openClients.incrementAndGet();
+
+        log.info("Created Fabrick client '{}' - maxPoolSize: {}, keepAlive: {}, pipelining: {}, http2: {}",
+            name, properties.getMaxPoolSize(), properties.isKeepAlive(), properties.isPipelining(), properties.isHttp2());
+
+        return new FabrickHttpClient(vertx, webClient, name, apiKey, authSchema, properties, usage);
+    }
+
+    private PoolUsage registerUsage(String name) {
+        PoolUsage usage = new PoolUsage(meterRegistry, name, properties);
+
+        Gauge.builder("fabrick.client.requests.active", usage.active, AtomicInteger::get)
+            .description("Fabrick requests in flight or waiting for a pooled connection")
+            .tag("client", name)
+            .register(meterRegistry);
+
+        Gauge.builder("fabrick.client.pool.capacity", usage.openClients,
+                open -> (double) open.get() * properties.getMaxPoolSize())
+            .description("Total connection pool size of the open Fabrick clients")
+            .tag("client", name)
+            .register(meterRegistry);
+
+        Gauge.builder("fabrick.circuit.state", usage.circuitBreaker, breaker -> breaker.getState().ordinal())
+            .description("Fabrick endpoint circuit state: 0 closed, 1 half-open, 2 open")
+            .tag("client", name)
+            .register(meterRegistry);
+
+        if (usage.limiter != null) {
+            Gauge.builder("fabrick.client.limit", usage.limiter, ConcurrencyLimiter::getMaxConcurrent)
+                .description("Adaptive concurrency limit of the Fabrick endpoint")
+                .tag("client", name)
+                .register(meterRegistry);
+            Gauge.builder("fabrick.client.limit.queue", usage.limiter, ConcurrencyLimiter::getQueued)
+                .description("Fabrick calls waiting for the adaptive concurrency limit")
+                .tag("client", name)
+                .register(meterRegistry);
+        }
+
+        return usage;
+    }
+
+    /**
+     * Pool usage counters, circuit breaker, bulkhead, adaptive limit and retry state shared by all clients
+     * with the same name. The adaptive limit is null when disabled.
+     */
+    static class PoolUsage {
+
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger openClients = new AtomicInteger();
+        final Timer success;
+        final Timer failure;
+        final CircuitBreaker circuitBreaker;
+        final Bulkhead bulkhead;
+        final Counter circuitOpenRejections;
+        final Counter bulkheadRejections;
+        final VegasLimit adaptiveLimit;
+        final ConcurrencyLimiter limiter;
+        final Counter limitRejections;
+        final RetryBudget retryBudget;
+        final LatencyTracker latency = new LatencyTracker();
+        final Counter retries;
+        final Counter budgetExhausted;
+        final Counter hedgesSent;
+        final Counter hedgesWon;
+
+        PoolUsage(MeterRegistry meterRegistry, String name, FabrickClientProperties properties) {
+            this.circuitBreaker = new CircuitBreaker(name, properties.getCircuitBreakerMaxFailures(),
+                properties.getCircuitBreakerResetTimeout(), System::currentTimeMillis);
+            this.bulkhead = new Bulkhead(properties.getBulkheadMaxConcurrentCalls());
+            if (properties.isAdaptiveLimit()) {
+                this.adaptiveLimit = new VegasLimit(properties.getAdaptiveInitialLimit(),
+                    properties.getBulkheadMaxConcurrentCalls());
+                this.limiter = new ConcurrencyLimiter(name, adaptiveLimit.getLimit(), properties.getAdaptiveMaxQueue());
+            } else {
+                this.adaptiveLimit = null;
+                this.limiter = null;
+            }
+            this.limitRejections = Counter.builder("fabrick.client.rejections")
+                .tag("client", name)
+                .tag("reason", "limit_reached")
+                .register(meterRegistry);
+            this.circuitOpenRejections = Counter.builder("fabrick.client.rejections")
+                .tag("client", name)
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+            this.bulkheadRejections = Counter.builder("fabrick.client.rejections")
+                .tag("client", name)
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+            this.success = Timer.builder("fabrick.client.requests")
+                .tag("client", name)
+                .tag("outcome", "success")
+                .register(meterRegistry);
+            this.failure = Timer.builder("fabrick.client.requests")
+                .tag("client", name)
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+            this.retryBudget = new RetryBudget(properties.getRetryBudgetRatio(), properties.getRetryBudgetMaxTokens());
+            this.retries = Counter.builder("fabrick.client.retries")
+                .tag("client", name)
+                .register(meterRegistry);
+            this.budgetExhausted = Counter.builder("fabrick.client.retry.budget.exhausted")
+                .tag("client", name)
+                .register(meterRegistry);
+            this.hedgesSent = Counter.builder("fabrick.client.hedges")
+                .tag("client", name)
+                .tag("result", "sent")
+                .register(meterRegistry);
+            this.hedgesWon = Counter.builder("fabrick.client.hedges")
+                .tag("client", name)
+                .tag("result", "won")
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package it.demo.fabrick.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import it.demo.fabrick.config.FabrickClientProperties;
+import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.utils.Deadline;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Long-lived, pooled client for the Fabrick API.
+ * One instance is created per verticle in start() and closed in stop(), so
+ * connections (and their TLS sessions) are reused across requests.
+ *
+ * Calls go through the endpoint bulkhead and circuit breaker: rejected calls
+ * fail with a {@link FabrickUnavailableException} without reaching Fabrick.
+ *
+ * Idempotent GETs sent with {@link #get(String)} are retried with exponential
+ * backoff and full jitter, within the endpoint retry budget, and optionally
+ * hedged with a second request once the first is slower than the endpoint p95.
+ *
+ * Concurrent calls per endpoint follow an adaptive (Vegas) limit derived from the
+ * observed RTT; calls over the limit wait in a bounded queue.
+ *
+ * When the event bus message being served carries a deadline, calls are bounded by
+ * the time remaining: connect and idle timeouts are derived from it, no call is sent
+ * once it has passed and no retry is scheduled past it. Non-idempotent POSTs only get
+ * the connect timeout: once written they wait for the Fabrick response, which tells
+ * whether the money transfer was executed.
+ */
+@Slf4j
+public class FabrickHttpClient {
+
+    private final Vertx vertx;
+    private final WebClient webClient;
+    private final String name;
+    private final String apiKey;
+    private final String authSchema;
+    private final FabrickClientProperties properties;
+    private final FabrickClientFactory.PoolUsage usage;
+
+    FabrickHttpClient(Vertx vertx, WebClient webClient, String name, String apiKey, String authSchema,
+                      FabrickClientProperties properties, FabrickClientFactory.PoolUsage usage) {
+        this.vertx = vertx;
+        this.webClient = webClient;
+        this.name = name;
+        this.apiKey = apiKey;
+        this.authSchema = authSchema;
+        this.properties = properties;
+        this.usage = usage;
+    }
+
+    /**
+     * Send an idempotent GET to the Fabrick API, retrying connection errors and
+     * 502/503/504 responses. Calls rejected by the circuit breaker or bulkhead are not retried.
+     *
+     * @param url the absolute Fabrick URL
+     * @return a future completed with the upstream response of the last attempt
+     */
+    public Future<HttpResponse<Buffer>> get(String url) {
+        usage.retryBudget.deposit();
+        Promise<HttpResponse<Buffer>> promise = Promise.promise();
+        attempt(url, 1, promise);
+        return promise.future();
+    }
+
+    private void attempt(String url, int attempt, Promise<HttpResponse<Buffer>> promise) {
+        hedged(url).onComplete(ar -> {
+            if (!isRetryable(ar) || attempt >= properties.getRetryMaxAttempts()) {
+                promise.handle(ar);
+                return;
+            }
+            if (!usage.retryBudget.tryWithdraw()) {
+                usage.budgetExhausted.increment();
+                log.warn("Fabrick '{}' retry budget exhausted, not retrying {}", name, url);
+                promise.handle(ar);
+                return;
+            }
+            long delay = backoff(attempt);
+            if (delay >= Deadline.remainingMillis()) {
+                log.warn("Fabrick '{}' attempt {} failed, no time left before the deadline to retry", name, attempt);
+                promise.handle(ar);
+                return;
+            }
+            usage.retries.increment();
+            log.warn("Fabrick '{}' attempt {} failed ({}), retrying in {} ms", name, attempt,
+                ar.succeeded() ? "HTTP " + ar.result().statusCode() : ar.cause().getMessage(), delay);
+            vertx.setTimer(Math.max(1, delay), id -> attempt(url, attempt + 1, promise));
+        });
+    }
+
+    /**
+     * One attempt, possibly raced against a hedged request: the first non-retryable
+     * outcome wins, otherwise the attempt fails with the outcome of the last request.
+     * A hedge rejected locally (bulkhead, circuit breaker, concurrency limit) never
+     * reached Fabrick and is ignored: the primary outcome decides.
+     */
+    private Future<HttpResponse<Buffer>> hedged(String url) {
+        Future<HttpResponse<Buffer>> primary = send(HttpMethod.GET, url, null);
+        long delay = properties.isHedging() ? usage.latency.p95(properties.getHedgingMinSamples()) : -1;
+        if (delay < 0) {
+            return primary;
+        }
+
+        Promise<HttpResponse<Buffer>> winner = Promise.promise();
+        int[] pending = {1};
+        long timerId = vertx.setTimer(Math.max(delay, properties.getHedgingMinDelay()), id -> {
+            if (winner.future().isComplete()) {
+                return;
+            }
+            if (!usage.retryBudget.tryWithdraw()) {
+                usage.budgetExhausted.increment();
+                return;
+            }
+            pending[0]++;
+            send(HttpMethod.GET, url, null).onComplete(ar -> {
+                if (ar.failed() && ar.cause() instanceof FabrickUnavailableException) {
+                    log.debug("Fabrick '{}' hedged request rejected locally: {}", name, ar.cause().getMessage());
+                    if (--pending[0] == 0) {
+                        tryHandle(winner, primary);
+                    }
+                    return;
+                }
+                usage.hedgesSent.increment();
+                if (!isRetryable(ar) && tryHandle(winner, ar)) {
+                    usage.hedgesWon.increment();
+                } else if (--pending[0] == 0) {
+                    tryHandle(winner, ar);
+                }
+            });
+        });
+        primary.onComplete(ar -> {
+            if (pending[0] == 1) {
+                vertx.cancelTimer(timerId);
+            }
+            if (!isRetryable(ar) || --pending[0] == 0) {
+                tryHandle(winner, ar);
+            }
+        });
+        return winner.future();
+    }
+
+    private static <T> boolean tryHandle(Promise<T> promise, AsyncResult<T> ar) {
+        return ar.succeeded() ? promise.tryComplete(ar.result()) : promise.tryFail(ar.cause());
+    }
+
+    private static boolean isRetryable(AsyncResult<HttpResponse<Buffer>> ar) {
+        if (ar.failed()) {
+            return !(ar.cause() instanceof FabrickUnavailableException);
+        }
+        int status = ar.result().statusCode();
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    /** Full jitter: uniform between 0 and the exponential cap */
+    private long backoff(int attempt) {
+        long cap = Math.min(properties.getRetryMaxBackoff(),
+            properties.getRetryInitialBackoff() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Send a request to the Fabrick API with the authentication headers.
+     *
+     * @param method the HTTP method
+     * @param url the absolute Fabrick URL
+     * @param body the request body, or null to send none
+     * @return a future completed with the upstream response
+     */
+    public Future<HttpResponse<Buffer>> send(HttpMethod method, String url, Buffer body) {
+        long remaining = Deadline.remainingMillis();
+        if (remaining <= 0) {
+            return Future.failedFuture(new FabrickUnavailableException(ErrorCode.DEADLINE_EXCEEDED,
+                "Deadline exceeded, Fabrick '" + name + "' not called"));
+        }
+        if (usage.limiter == null) {
+            return call(method, url, body);
+        }
+
+        return usage.limiter.acquire(vertx.getOrCreateContext(), Math.min(remaining, properties.getAdaptiveQueueTimeout()))
+            .recover(e -> {
+                usage.limitRejections.increment();
+                return Future.failedFuture(new FabrickUnavailableException(ErrorCode.API_BULKHEAD_FULL,
+                    "Fabrick '" + name + "' concurrency limit reached, rejected"));
+            })
+            .compose(v -> {
+                long start = System.nanoTime();
+                return call(method, url, body).onComplete(ar -> {
+                    int inFlight = usage.limiter.getInFlight();
+                    usage.limiter.release();
+                    // local rejections say nothing about the upstream RTT
+                    if (ar.succeeded() || !(ar.cause() instanceof FabrickUnavailableException)) {
+                        boolean dropped = ar.failed() || ar.result().statusCode() >= 500;
+                        int limit = usage.adaptiveLimit.onSample(System.nanoTime() - start, inFlight, dropped);
+                        if (limit != usage.limiter.getMaxConcurrent()) {
+                            usage.limiter.setLimits(limit, properties.getAdaptiveMaxQueue());
+                        }
+                    }
+                });
+            });
+    }
+
+    private Future<HttpResponse<Buffer>> call(HttpMethod method, String url, Buffer body) {
+        long remaining = Deadline.remainingMillis();
+        if (remaining <= 0) {
+            return Future.failedFuture(new FabrickUnavailableException(ErrorCode.DEADLINE_EXCEEDED,
+                "Deadline exceeded, Fabrick '" + name + "' not called"));
+        }
+        if (!usage.bulkhead.tryAcquire()) {
+            usage.bulkheadRejections.increment();
+            return Future.failedFuture(new FabrickUnavailableException(ErrorCode.API_BULKHEAD_FULL,
+                "Too many concurrent Fabrick '" + name + "' calls, rejected"));
+        }
+        if (!usage.circuitBreaker.allowRequest()) {
+            usage.bulkhead.release();
+            usage.circuitOpenRejections.increment();
+            return Future.failedFuture(new FabrickUnavailableException(ErrorCode.API_CIRCUIT_OPEN,
+                "Fabrick '" + name + "' circuit open, failing fast"));
+        }
+
+        HttpRequest<Buffer> request = webClient.requestAbs(method, url)
+            .putHeader("Content-Type", "application/json")
+            .putHeader("Auth-Schema", authSchema)
+            .putHeader("Api-Key", apiKey);
+        if (remaining != Long.MAX_VALUE) {
+            request.connectTimeout(Math.min(remaining, properties.getConnectTimeout()));
+            if (method != HttpMethod.POST) {
+                request.idleTimeout(remaining);
+            }
+        }
+
+        usage.active.incrementAndGet();
+        long start = System.nanoTime();
+
+        Future<HttpResponse<Buffer>> future = body != null ? request.sendBuffer(body) : request.send();
+        return future.onComplete(ar -> {
+            usage.active.decrementAndGet();
+            usage.bulkhead.release();
+            long elapsed = System.nanoTime() - start;
+            (ar.succeeded() ? usage.success : usage.failure).record(elapsed, TimeUnit.NANOSECONDS);
+            if (ar.succeeded() && ar.result().statusCode() < 500) {
+                usage.latency.record(TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+
+            // 4xx are answers about the request, only connection errors and 5xx count against the circuit
+            if (ar.succeeded() && ar.result().statusCode() < 500) {
+                usage.circuitBreaker.onSuccess();
+            } else {
+                usage.circuitBreaker.onFailure();
+            }
+        });
+    }
+
+    /**
+     * Close the underlying WebClient and release its connection pool.
+     */
+    public void close() {
+        log.info("Closing Fabrick client '{}' - requests still active for this client name: {}",
+            name, usage.active.get());
+        usage.openClients.decrementAndGet();
+        webClient.close();
+    }
+}
@@ -0,0 +1,47 @@
+package it.demo.fabrick.client;
+
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.utils.Deadline;
+
+/**
+ * Fabrick call rejected locally without reaching the API (circuit open, bulkhead full, deadline exceeded).
+ * Carries the ErrorCode to fail the event bus message with. No stack trace: it is
+ * raised on every fast failure while Fabrick is degraded.
+ */
+public class FabrickUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int errorCode;
+
+    public FabrickUnavailableException(int errorCode, String message) {
+        super("ErrorCode " + errorCode + " - " + message, null, false, false);
+        this.errorCode = errorCode;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Map the failure of a Fabrick call to the event bus failure returned to the caller.
+     *
+     * @param cause the failure of {@link FabrickHttpClient#send}
+     * @return the ErrorCode of a local rejection, DEADLINE_EXCEEDED if the call timed out on
+     *         the request deadline, API_CONNECTION_FAILED otherwise
+     */
+    public static ReplyException toReplyException(Throwable cause) {
+        if (cause instanceof FabrickUnavailableException rejected) {
+            return new ReplyException(ReplyFailure.RECIPIENT_FAILURE, rejected.errorCode, rejected.getMessage());
+        }
+        if (Deadline.remainingMillis() <= 0) {
+            return new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.DEADLINE_EXCEEDED,
+                "ErrorCode " + ErrorCode.DEADLINE_EXCEEDED + " - Deadline exceeded calling Fabrick API: " + cause.getMessage());
+        }
+        String errorMessage = String.format("ErrorCode %d - Unable to call Fabrick API, service may be down: %s",
+            ErrorCode.API_CONNECTION_FAILED, cause.getMessage());
+        return new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.API_CONNECTION_FAILED, errorMessage);
+    }
+}
@@ -0,0 +1,42 @@
+package it.demo.fabrick.client;
+
+import java.util.Arrays;
+
+/**
+ * p95 of the latest successful call latencies of one Fabrick endpoint, used as
+ * hedging delay. Keeps a fixed window of samples; the percentile is recomputed
+ * every {@code RECOMPUTE_EVERY} samples rather than on each read.
+ */
+public class LatencyTracker {
+
+    private static final int WINDOW = 256;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples = new long[WINDOW];
+    private int count;
+    private int next;
+    private long p95 = -1;
+
+    /**
+     * @param millis latency of a successful call
+     */
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % WINDOW;
+        count++;
+        if (count % RECOMPUTE_EVERY == 0) {
+            int size = Math.min(count, WINDOW);
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            p95 = sorted[(int) Math.ceil(size * 0.95) - 1];
+        }
+    }
+
+    /**
+     * @param minSamples samples required before a percentile is reported
+     * @return the p95 latency in milliseconds, -1 until enough samples were recorded
+     */
+    public synchronized long p95(int minSamples) {
+        return count >= minSamples ? p95 : -1;
+    }
+}
@@ -0,0 +1,42 @@
+package it.demo.fabrick.client;
+
+/**
+ * Token bucket limiting retries (and hedged requests) to a fraction of the
+ * original requests of one Fabrick endpoint, so that retries cannot turn an
+ * upstream incident into a request storm.
+ *
+ * Each original request deposits {@code ratio} tokens, each retry withdraws one;
+ * the balance is capped (and starts) at {@code maxTokens}, allowing a small burst.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    /** Record an original request */
+    public synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * @return true if a retry may be sent
+     */
+    public synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,76 @@
+package it.demo.fabrick.client;
+
+/**
+ * TCP Vegas style concurrency limit of one Fabrick endpoint, adjusted from the
+ * observed round trip times.
+ *
+ * The queueing delay is estimated as {@code limit * (1 - rttNoLoad / rtt)}, where
+ * {@code rttNoLoad} is the lowest RTT observed: the limit grows while the estimated
+ * queue is short and shrinks when it grows or a call fails (connection error, timeout,
+ * HTTP 5xx). {@code rttNoLoad} is reset every {@value #PROBE_MULTIPLIER} x limit samples,
+ * so that a permanent change of the upstream latency is picked up.
+ * Growth is skipped while less than half of the limit is in use.
+ */
+public class VegasLimit {
+
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final int maxLimit;
+    private double limit;
+    private long rttNoLoad;
+    private long samplesSinceProbe;
+
+    /**
+     * @param initialLimit the limit before any sample
+     * @param maxLimit the highest limit, e.g. the endpoint bulkhead size
+     */
+    public VegasLimit(int initialLimit, int maxLimit) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.max(1, Math.min(initialLimit, this.maxLimit));
+    }
+
+    /**
+     * Record a completed call.
+     *
+     * @param rttNanos the call round trip time
+     * @param inFlight calls in flight when the call completed, itself included
+     * @param dropped true if the call failed on the upstream side
+     * @return the new limit
+     */
+    public synchronized int onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (++samplesSinceProbe >= PROBE_MULTIPLIER * limit) {
+            samplesSinceProbe = 0;
+            rttNoLoad = rttNanos;
+            return getLimit();
+        }
+        if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+            rttNoLoad = rttNanos;
+            return getLimit();
+        }
+
+        double log10 = Math.max(1, (int) Math.log10(limit));
+        double newLimit;
+        if (dropped) {
+            newLimit = limit - log10;
+        } else if (inFlight * 2 < limit) {
+            return getLimit();
+        } else {
+            double queueSize = Math.ceil(limit * (1 - (double) rttNoLoad / rttNanos));
+            if (queueSize <= log10) {
+                newLimit = limit + 6 * log10;
+            } else if (queueSize < 3 * log10) {
+                newLimit = limit + log10;
+            } else if (queueSize > 6 * log10) {
+                newLimit = limit - log10;
+            } else {
+                return getLimit();
+            }
+        }
+        limit = Math.max(1, Math.min(maxLimit, newLimit));
+        return getLimit();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+}
@@ -0,0 +1,56 @@
+package it.demo.fabrick.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Admission control of the REST API: concurrency limit and wait queue per route.
+ * Bound from the {@code admission.*} application properties. Reads (balance,
+ * transactions) and writes (money transfers) have separate limits, so a burst
+ * of reads cannot take the capacity reserved for transfers.
+ * Initial values only: limits can be changed at runtime through the
+ * {@code admission} actuator endpoint.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionProperties {
+
+    /** Disable to admit every request */
+    private boolean enabled = true;
+
+    /** Max time in milliseconds a request waits in the queue before being shed */
+    private long queueTimeout = 1000;
+
+    /** Retry-After header value, in seconds, of shed requests */
+    private int retryAfter = 1;
+
+    /** GET /api/accounts/balance */
+    private Limit balance = new Limit(64, 128);
+
+    /** GET /api/accounts/transactions */
+    private Limit transactions = new Limit(32, 64);
+
+    /** POST /api/accounts/payments/money-transfers */
+    private Limit moneyTransfer = new Limit(16, 16);
+
+    @Data
+    public static class Limit {
+
+        /** Requests processed concurrently */
+        private int maxConcurrent;
+
+        /** Requests waiting for a permit, further requests are shed */
+        private int maxQueue;
+
+        public Limit() {
+        }
+
+        public Limit(int maxConcurrent, int maxQueue) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+        }
+    }
+}
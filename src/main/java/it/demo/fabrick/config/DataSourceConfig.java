@@ -0,0 +1,30 @@
+package it.demo.fabrick.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import it.demo.fabrick.db.DatabasePool;
+
+/**
+ * Configuration class for the application DataSource.
+ * One HikariCP pool, sized by the {@code database.pool.*} properties, for JPA, SchemaMigrator
+ * and the Vert.x DatabasePool, so that a file-backed H2 database is opened by a single pool;
+ * it replaces the pool auto-configured from {@code spring.datasource.hikari.*}.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DatabasePoolProperties properties,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.datasource.url}") String dbUrl,
+                                 @Value("${spring.datasource.driverClassName}") String driverClassName,
+                                 @Value("${spring.datasource.username:}") String username,
+                                 @Value("${spring.datasource.password:}") String password) {
+        return DatabasePool.createDataSource(properties, meterRegistry, dbUrl, driverClassName, username, password);
+    }
+}
@@ -0,0 +1,36 @@
+package it.demo.fabrick.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Connection pool settings of the Vert.x JDBCPool shared by the H2 stores
+ * (transaction persistence and history, idempotency keys).
+ * Bound from the {@code database.pool.*} application properties; the defaults
+ * below are used when a property is not set.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "database.pool")
+public class DatabasePoolProperties {
+
+    /** Max open JDBC connections */
+    private int maxPoolSize = 10;
+
+    /** Connections kept open when idle */
+    private int minIdle = 2;
+
+    /** Max requests waiting for a connection once all are in use, -1 for unbounded; further requests fail at once */
+    private int maxWaitQueueSize = 100;
+
+    /** Max time in milliseconds a request waits for a connection before failing */
+    private long maxWaitTime = 5000;
+
+    /** Seconds an idle connection above minIdle stays open, 0 to never close them */
+    private int idleTimeout = 600;
+
+    /** Parsed statements cached per connection (H2 QUERY_CACHE_SIZE), 0 to disable */
+    private int statementCacheSize = 64;
+}
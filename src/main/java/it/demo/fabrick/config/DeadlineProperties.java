@@ -0,0 +1,27 @@
+package it.demo.fabrick.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Per-endpoint deadlines of the REST API, in milliseconds.
+ * Bound from the {@code deadline.*} application properties: each deadline bounds the
+ * event bus request and, through {@link it.demo.fabrick.utils.Deadline}, the Fabrick calls
+ * made to serve it.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "deadline")
+public class DeadlineProperties {
+
+    /** GET /api/accounts/balance */
+    private long balance = 10000;
+
+    /** GET /api/accounts/transactions */
+    private long transactions = 30000;
+
+    /** POST /api/accounts/payments/money-transfers, synchronous or async */
+    private long moneyTransfer = 100000;
+}
@@ -0,0 +1,122 @@
+package it.demo.fabrick.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.client.WebClientOptions;
+import lombok.Data;
+
+/**
+ * Connection pool and transport settings for the outbound Fabrick WebClient.
+ * Bound from the {@code fabrick.client.*} application properties; the defaults
+ * below are used when a property is not set.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fabrick.client")
+public class FabrickClientProperties {
+
+    /** Max HTTP/1.x connections per client (one client per verticle instance) */
+    private int maxPoolSize = 20;
+
+    /** Max requests waiting for a pooled connection, -1 for unbounded */
+    private int maxWaitQueueSize = -1;
+
+    /** Reuse connections between requests */
+    private boolean keepAlive = true;
+
+    /** Seconds a kept-alive connection may stay unused before being closed by the pool */
+    private int keepAliveTimeout = 60;
+
+    /** Enable HTTP/1.1 pipelining */
+    private boolean pipelining = false;
+
+    /** Max in-flight pipelined requests per connection */
+    private int pipeliningLimit = 10;
+
+    /** Seconds without reads/writes after which a connection is closed, 0 to disable */
+    private int idleTimeout = 60;
+
+    /** Connect timeout in milliseconds */
+    private int connectTimeout = 5000;
+
+    /** Negotiate HTTP/2 through ALPN, falling back to HTTP/1.1 */
+    private boolean http2 = false;
+
+    /** Max HTTP/2 connections per client */
+    private int http2MaxPoolSize = 1;
+
+    /** Max concurrent streams per HTTP/2 connection, -1 for the server limit */
+    private int http2MultiplexingLimit = -1;
+
+    /** Consecutive failures (connection errors, HTTP 5xx) opening an endpoint circuit */
+    private int circuitBreakerMaxFailures = 5;
+
+    /** Milliseconds an open circuit fails fast before letting a trial call through */
+    private long circuitBreakerResetTimeout = 30000;
+
+    /** Max concurrent calls per endpoint across all verticle instances, further calls are rejected */
+    private int bulkheadMaxConcurrentCalls = 50;
+
+    /** Adapt the concurrent calls per endpoint to the observed RTT (Vegas), capped by bulkheadMaxConcurrentCalls */
+    private boolean adaptiveLimit = true;
+
+    /** Concurrent calls per endpoint allowed before the first RTT samples */
+    private int adaptiveInitialLimit = 20;
+
+    /** Calls per endpoint waiting for the adaptive limit, further calls are rejected */
+    private int adaptiveMaxQueue = 100;
+
+    /** Max time in milliseconds a call waits for the adaptive limit (never past the request deadline) */
+    private long adaptiveQueueTimeout = 5000;
+
+    /** Max attempts of an idempotent GET, including the first one (1 disables retries) */
+    private int retryMaxAttempts = 3;
+
+    /** Backoff cap of the first retry in milliseconds, doubled at each retry (full jitter) */
+    private long retryInitialBackoff = 100;
+
+    /** Max backoff between retries in milliseconds */
+    private long retryMaxBackoff = 2000;
+
+    /** Retries (and hedged requests) allowed per original request, e.g. 0.1 = 10% */
+    private double retryBudgetRatio = 0.1;
+
+    /** Retry budget burst: retries available with no recent traffic */
+    private int retryBudgetMaxTokens = 10;
+
+    /** Send a second request when an idempotent GET is slower than the endpoint p95 */
+    private boolean hedging = false;
+
+    /** Min hedging delay in milliseconds, whatever the observed p95 */
+    private long hedgingMinDelay = 50;
+
+    /** Successful calls to observe before hedging (p95 warm-up) */
+    private int hedgingMinSamples = 20;
+
+    /**
+     * Build the WebClientOptions for these settings.
+     *
+     * @return a new WebClientOptions instance
+     */
+    public WebClientOptions toWebClientOptions() {
+        WebClientOptions options = new WebClientOptions()
+            .setMaxPoolSize(maxPoolSize)
+            .setMaxWaitQueueSize(maxWaitQueueSize)
+            .setKeepAlive(keepAlive)
+            .setKeepAliveTimeout(keepAliveTimeout)
+            .setPipelining(pipelining)
+            .setPipeliningLimit(pipeliningLimit)
+            .setIdleTimeout(idleTimeout)
+            .setConnectTimeout(connectTimeout)
+            .setHttp2MaxPoolSize(http2MaxPoolSize)
+            .setHttp2MultiplexingLimit(http2MultiplexingLimit);
+
+        if (http2) {
+            options.setProtocolVersion(HttpVersion.HTTP_2)
+                .setUseAlpn(true);
+        }
+        return options;
+    }
+}
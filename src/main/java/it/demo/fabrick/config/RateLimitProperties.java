@@ -0,0 +1,53 @@
+package it.demo.fabrick.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Per-client rate limits of the REST API, per route.
+ * Bound from the {@code ratelimit.*} application properties. Clients are identified
+ * by the {@code clientHeader} value (API key) or, without it, by the remote address.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+    /** Disable to skip rate limiting */
+    private boolean enabled = true;
+
+    /** Request header identifying the client, the remote address is used when missing */
+    private String clientHeader = "X-Api-Key";
+
+    /** Milliseconds after which the bucket of an idle client is evicted */
+    private long idleTimeout = 60000;
+
+    /** GET /api/accounts/balance */
+    private Limit balance = new Limit(20, 40);
+
+    /** GET /api/accounts/transactions */
+    private Limit transactions = new Limit(5, 10);
+
+    /** POST /api/accounts/payments/money-transfers */
+    private Limit moneyTransfer = new Limit(2, 5);
+
+    @Data
+    public static class Limit {
+
+        /** Sustained requests per second per client */
+        private double ratePerSecond;
+
+        /** Requests a client may send at once after being idle (bucket size) */
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+    }
+}
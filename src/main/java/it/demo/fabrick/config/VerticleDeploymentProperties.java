@@ -0,0 +1,85 @@
+package it.demo.fabrick.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.ThreadingModel;
+import lombok.Data;
+
+/**
+ * Per-verticle deployment settings, keyed by verticle bean name.
+ *
+ * Example:
+ * <pre>
+ * vertx.deployment.listaTransazioniVerticle.instances=8
+ * vertx.deployment.transactionPersistenceVerticle.threadingModel=WORKER
+ * vertx.deployment.transactionPersistenceVerticle.workerPoolName=persistence-pool
+ * vertx.deployment.transactionPersistenceVerticle.workerPoolSize=4
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vertx")
+public class VerticleDeploymentProperties {
+
+    private Map<String, Deployment> deployment = new HashMap<String, Deployment>();
+
+    /**
+     * Build the DeploymentOptions for a verticle.
+     *
+     * @param verticleName the verticle bean name
+     * @param defaultInstances the instance count used when none is configured
+     * @return the DeploymentOptions to deploy the verticle with
+     */
+    public DeploymentOptions toDeploymentOptions(String verticleName, int defaultInstances) {
+        Deployment settings = deployment.entrySet().stream()
+            .filter(entry -> entry.getKey().equalsIgnoreCase(verticleName))
+            .map(Map.Entry::getValue)
+            .findFirst()
+            .orElseGet(Deployment::new);
+
+        DeploymentOptions options = new DeploymentOptions()
+            .setInstances(settings.getInstances() != null && settings.getInstances() > 0
+                ? settings.getInstances()
+                : defaultInstances)
+            .setThreadingModel(settings.getThreadingModel());
+
+        if (settings.getWorkerPoolName() != null) {
+            options.setWorkerPoolName(settings.getWorkerPoolName());
+        }
+        if (settings.getWorkerPoolSize() != null) {
+            options.setWorkerPoolSize(settings.getWorkerPoolSize());
+        }
+        return options;
+    }
+
+    /**
+     * Instance count of a verticle deployed once per event loop by default (e.g. http.server.instances).
+     *
+     * @param configured the configured instance count, 0 or less for one instance per core
+     * @return the instance count to deploy
+     */
+    public static int instancesOrCores(int configured) {
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Data
+    public static class Deployment {
+
+        /** Number of verticle instances, each with its own event-bus consumer */
+        private Integer instances;
+
+        /** EVENT_LOOP, WORKER or VIRTUAL_THREAD */
+        private ThreadingModel threadingModel = ThreadingModel.EVENT_LOOP;
+
+        /** Named worker pool for WORKER deployments, null for the shared Vert.x worker pool */
+        private String workerPoolName;
+
+        /** Size of the named worker pool */
+        private Integer workerPoolSize;
+    }
+}
@@ -0,0 +1,175 @@
+package it.demo.fabrick.db;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.jdbcclient.JDBCPool;
+import io.vertx.sqlclient.SqlConnection;
+import it.demo.fabrick.config.DatabasePoolProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The Vert.x JDBCPool shared by TransactionPersistenceVerticle, TransactionHistoryStore
+ * and IdempotencyStore, over the application HikariCP data source (see
+ * {@link #createDataSource}): the same connections also serve SchemaMigrator and JPA.
+ *
+ * JDBC calls run on Vert.x worker threads, so a request waiting for a connection never
+ * blocks an event loop; the wait is bounded by {@code maxWaitTime}, and by
+ * {@code maxWaitQueueSize} requests beyond the pool size, further requests fail at once.
+ * For H2 the statement cache is the per-connection QUERY_CACHE_SIZE: the same SQL
+ * prepared again on a connection is not parsed and planned again.
+ *
+ * Metrics:
+ * - database.pool.requests.active: requests holding or waiting for a connection
+ * - database.pool.wait: time from the request to the connection, including the worker hand-off
+ * - database.pool.rejections: requests rejected because the wait queue was full
+ * - hikaricp.connections.* (tag {@code pool} persistence): connections active, idle, pending, usage and timeouts
+ */
+@Component
+@Slf4j
+public class DatabasePool {
+
+    private static final String POOL_NAME = "persistence";
+
+    private final DatabasePoolProperties properties;
+    private final DataSource dataSource;
+    /** Data source created by this pool, closed with it; null for the Spring-managed one */
+    private final HikariDataSource ownDataSource;
+    private volatile JDBCPool pool;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter rejections;
+
+    /**
+     * Pool over the Spring-managed data source, which stays open when the pool is closed.
+     */
+    @Autowired
+    public DatabasePool(DatabasePoolProperties properties, MeterRegistry meterRegistry, DataSource dataSource) {
+        this(properties, meterRegistry, dataSource, null);
+    }
+
+    /**
+     * Pool over a data source of its own, closed with the pool.
+     */
+    public DatabasePool(DatabasePoolProperties properties, MeterRegistry meterRegistry,
+                        String dbUrl, String driverClassName, String username, String password) {
+        this(properties, meterRegistry, null,
+            createDataSource(properties, meterRegistry, dbUrl, driverClassName, username, password));
+    }
+
+    private DatabasePool(DatabasePoolProperties properties, MeterRegistry meterRegistry,
+                         DataSource dataSource, HikariDataSource ownDataSource) {
+        this.properties = properties;
+        this.dataSource = ownDataSource != null ? ownDataSource : dataSource;
+        this.ownDataSource = ownDataSource;
+
+        Gauge.builder("database.pool.requests.active", active, AtomicInteger::get)
+            .description("Database requests holding or waiting for a pooled connection")
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder("database.pool.wait")
+            .description("Time waited for a pooled database connection")
+            .register(meterRegistry);
+        this.rejections = Counter.builder("database.pool.rejections")
+            .description("Database requests rejected because the pool wait queue was full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the function with a pooled connection, closed (returned to the pool) when the
+     * future returned by the function completes.
+     *
+     * @param vertx the Vert.x instance
+     * @param function the database work
+     * @return the result of the function, or a failure if no connection could be obtained
+     */
+    public <T> Future<T> withConnection(Vertx vertx, Function<SqlConnection, Future<T>> function) {
+        int maxWaitQueueSize = properties.getMaxWaitQueueSize();
+        // one atomic step to take the place, given back when over the limit
+        if (active.incrementAndGet() > properties.getMaxPoolSize() + maxWaitQueueSize && maxWaitQueueSize >= 0) {
+            active.decrementAndGet();
+            rejections.increment();
+            return Future.failedFuture(new IllegalStateException("Database pool wait queue full ("
+                + maxWaitQueueSize + " requests waiting)"));
+        }
+
+        long start = System.nanoTime();
+        return pool(vertx).getConnection()
+            .compose(conn -> {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return function.apply(conn).andThen(ar -> conn.close());
+            })
+            .andThen(ar -> active.decrementAndGet());
+    }
+
+    @PreDestroy
+    public void close() {
+        JDBCPool current = pool;
+        if (current != null) {
+            current.close();
+        }
+        if (ownDataSource != null) {
+            ownDataSource.close();
+        }
+    }
+
+    /**
+     * HikariCP data source sized by the database.pool properties, not started: the first
+     * connection is opened on first use.
+     *
+     * @return the data source, to close when no longer used
+     */
+    public static HikariDataSource createDataSource(DatabasePoolProperties properties, MeterRegistry meterRegistry,
+                                                    String dbUrl, String driverClassName, String username, String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(POOL_NAME);
+        dataSource.setJdbcUrl(withStatementCache(dbUrl, properties.getStatementCacheSize()));
+        dataSource.setDriverClassName(driverClassName);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(properties.getMaxPoolSize());
+        dataSource.setMinimumIdle(Math.min(properties.getMinIdle(), properties.getMaxPoolSize()));
+        dataSource.setConnectionTimeout(properties.getMaxWaitTime());
+        dataSource.setIdleTimeout(TimeUnit.SECONDS.toMillis(properties.getIdleTimeout()));
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+
+    private JDBCPool pool(Vertx vertx) {
+        JDBCPool current = pool;
+        if (current == null) {
+            synchronized (this) {
+                if (pool == null) {
+                    pool = JDBCPool.pool(vertx, dataSource);
+                    log.info("Created database pool '{}' - maxPoolSize: {}, maxWaitQueueSize: {}, statementCacheSize: {}",
+                        POOL_NAME, properties.getMaxPoolSize(), properties.getMaxWaitQueueSize(),
+                        properties.getStatementCacheSize());
+                }
+                current = pool;
+            }
+        }
+        return current;
+    }
+
+    private static String withStatementCache(String dbUrl, int statementCacheSize) {
+        if (!dbUrl.startsWith("jdbc:h2:") || dbUrl.toUpperCase().contains("QUERY_CACHE_SIZE")) {
+            return dbUrl;
+        }
+        return dbUrl + ";QUERY_CACHE_SIZE=" + statementCacheSize;
+    }
+}
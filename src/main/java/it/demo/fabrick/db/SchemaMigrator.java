@@ -0,0 +1,154 @@
+package it.demo.fabrick.db;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Versioned, non-destructive schema migrations, applied at startup before any verticle
+ * is deployed.
+ *
+ * Scripts are the {@code db/migration/V<version>__<description>.sql} classpath resources;
+ * the versions applied are recorded in SCHEMA_VERSION, and only the scripts with a higher
+ * version run, in version order, each in its own transaction. Existing data is never
+ * dropped, so a file-backed database keeps its history across restarts. H2 commits DDL
+ * statements implicitly: scripts use IF NOT EXISTS, so that a script interrupted halfway
+ * can run again.
+ */
+@Component
+@Slf4j
+public class SchemaMigrator {
+
+    static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String CREATE_VERSION_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS SCHEMA_VERSION ("
+            + "VERSION INT PRIMARY KEY, "
+            + "DESCRIPTION VARCHAR(200) NOT NULL, "
+            + "INSTALLED_AT TIMESTAMP NOT NULL)";
+
+    private static final String CURRENT_VERSION_SQL = "SELECT COALESCE(MAX(VERSION), 0) FROM SCHEMA_VERSION";
+
+    private static final String INSERT_VERSION_SQL =
+        "INSERT INTO SCHEMA_VERSION (VERSION, DESCRIPTION, INSTALLED_AT) VALUES (?, ?, CURRENT_TIMESTAMP)";
+
+    private record Migration(int version, String description, Resource script) {
+    }
+
+    private final DataSource dataSource;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void migrate() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            migrate(connection);
+        }
+    }
+
+    /**
+     * Apply the pending migrations.
+     *
+     * @param connection the database connection
+     * @return the number of migrations applied
+     * @throws SQLException if the schema version cannot be read or recorded
+     * @throws IllegalStateException if a migration fails, after rolling it back
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_VERSION_TABLE_SQL);
+        }
+        int current = currentVersion(connection);
+
+        int applied = 0;
+        for (Migration migration : migrations()) {
+            if (migration.version() > current) {
+                apply(connection, migration);
+                current = migration.version();
+                applied++;
+            }
+        }
+        log.info("Database schema at version {}, {} migrations applied", current, applied);
+        return applied;
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(CURRENT_VERSION_SQL)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.script(), StandardCharsets.UTF_8));
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_VERSION_SQL)) {
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.executeUpdate();
+            }
+            connection.commit();
+        } catch (RuntimeException | SQLException e) {
+            connection.rollback();
+            throw new IllegalStateException("Schema migration V" + migration.version() + " ("
+                + migration.description() + ") failed", e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        log.info("Applied schema migration V{} ({}) in {} ms", migration.version(), migration.description(),
+            System.currentTimeMillis() - start);
+    }
+
+    private static List<Migration> migrations() {
+        Resource[] scripts;
+        try {
+            scripts = new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        } catch (IOException e) {
+            throw new IllegalStateException("Schema migrations not readable from " + LOCATION, e);
+        }
+
+        List<Migration> migrations = new ArrayList<Migration>();
+        for (Resource script : scripts) {
+            Matcher matcher = SCRIPT_NAME.matcher(String.valueOf(script.getFilename()));
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Invalid schema migration name: " + script.getFilename());
+            }
+            migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), script));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Duplicate schema migration version: V" + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+}
@@ -0,0 +1,22 @@
+package it.demo.fabrick.dto.bus;
+
+import it.demo.fabrick.dto.rest.BonificoRestRequestDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Event bus message for money transfer operations (BONIFICO_BUS).
+ * Carries the validated REST request by reference to BonificoVerticle.
+ * idempotencyKey is the client's Idempotency-Key header, null when not sent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BonificoBusRequestDto {
+    private String accountId;
+    private String indirizzo;
+    private String requestId;
+    private BonificoRestRequestDto request;
+    private String idempotencyKey;
+}
@@ -0,0 +1,26 @@
+package it.demo.fabrick.dto.bus;
+
+import java.util.List;
+
+import it.demo.fabrick.dto.ListaTransactionDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Event bus message for transaction persistence (TRANSACTION_PERSISTENCE_BUS).
+ * Carries the fetched transactions by reference to TransactionPersistenceVerticle.
+ *
+ * syncFrom/syncTo (ISO dates, optional) mark the accounting days whose transactions
+ * are all persisted once this message is: they are then served by TransactionHistoryStore.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPersistenceRequestDto {
+    private String requestId;
+    private String accountId;
+    private List<ListaTransactionDto> transactions;
+    private String syncFrom;
+    private String syncTo;
+}
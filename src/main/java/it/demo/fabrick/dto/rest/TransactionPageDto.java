@@ -0,0 +1,23 @@
+package it.demo.fabrick.dto.rest;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * REST response DTO for a page of transactions.
+ * list holds full transactions, or only the requested fields with a projection;
+ * nextCursor is omitted on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageDto {
+    private List<?> list;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+}
@@ -0,0 +1,24 @@
+package it.demo.fabrick.dto.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * REST response DTO for asynchronous money transfer jobs.
+ * status is PENDING while the transfer runs, then EXECUTED or FAILED once Fabrick answered,
+ * or UNKNOWN when the transfer may have been executed but its outcome could not be verified
+ * (validation enquiry unavailable, deadline exceeded with the transfer in flight);
+ * result holds the transfer response once available.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferJobDto {
+    private String transferId;
+    private String status;
+    private String message;
+    private String createdAt;
+    private String completedAt;
+    private BonificoRestResponseDto result;
+}
@@ -20,6 +20,15 @@ public final class ErrorCode {
     /** Invalid parameter value (e.g., invalid date format) */
     public static final int VALIDATION_INVALID_VALUE = 402;
 
+    /** Idempotency-Key already used for a different request */
+    public static final int IDEMPOTENCY_KEY_REUSED = 403;
+
+    /** Unknown or expired resource (e.g. async transfer id) */
+    public static final int NOT_FOUND = 404;
+
+    /** Client over its rate limit for the route */
+    public static final int RATE_LIMITED = 405;
+
     // External API errors (5xx equivalent)
     /** External API returned an error response */
     public static final int API_ERROR = 500;
@@ -30,6 +39,18 @@ public final class ErrorCode {
     /** Error parsing external API response */
     public static final int API_PARSE_ERROR = 502;
 
+    /** External API circuit open: call rejected without reaching the API */
+    public static final int API_CIRCUIT_OPEN = 503;
+
+    /** Request deadline exceeded before the work completed */
+    public static final int DEADLINE_EXCEEDED = 504;
+
+    /** Too many concurrent calls to the external API endpoint: call rejected */
+    public static final int API_BULKHEAD_FULL = 505;
+
+    /** Request shed by admission control: too many requests in progress on the route */
+    public static final int SERVER_OVERLOADED = 506;
+
     // Internal errors
     /** JSON serialization error */
     public static final int INTERNAL_SERIALIZATION_ERROR = 600;
@@ -37,6 +58,9 @@ public final class ErrorCode {
     /** Internal processing error */
     public static final int INTERNAL_ERROR = 601;
 
+    /** Transaction persistence buffer full: transactions not persisted */
+    public static final int PERSISTENCE_BUFFER_FULL = 602;
+
     /**
      * Get the HTTP status code equivalent for an error code.
      *
@@ -44,7 +68,18 @@ public final class ErrorCode {
      * @return the HTTP status code (400 for 4xx errors, 500 for 5xx errors)
      */
     public static int toHttpStatusCode(int errorCode) {
-        if (errorCode >= 400 && errorCode < 500) {
+        if (errorCode == IDEMPOTENCY_KEY_REUSED) {
+            return 422; // Unprocessable Content
+        } else if (errorCode == NOT_FOUND) {
+            return 404;
+        } else if (errorCode == RATE_LIMITED) {
+            return 429; // Too Many Requests
+        } else if (errorCode == API_CIRCUIT_OPEN || errorCode == API_BULKHEAD_FULL
+                || errorCode == SERVER_OVERLOADED) {
+            return 503; // Service Unavailable - failing fast, retry later
+        } else if (errorCode == DEADLINE_EXCEEDED) {
+            return 504; // Gateway Timeout
+        } else if (errorCode >= 400 && errorCode < 500) {
             return 400;
         } else if (errorCode >= 500 && errorCode < 600) {
             return 502; // Bad Gateway - external API error
@@ -0,0 +1,76 @@
+package it.demo.fabrick.mapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.buffer.impl.BufferImpl;
+import it.demo.fabrick.dto.ListaTransactionDto;
+
+/**
+ * Streaming reader of the Fabrick transactions response.
+ *
+ * Walks the response buffer with a Jackson {@link JsonParser}, without decoding it
+ * to a String or binding the whole {@link it.demo.fabrick.dto.TransactionDto}, and
+ * binds the items of {@code payload.list} one at a time.
+ */
+public final class TransactionListReader {
+
+	private TransactionListReader() {
+		// Private constructor to prevent instantiation
+	}
+
+	/**
+	 * Read the transactions of a Fabrick response body.
+	 *
+	 * @param mapper the ObjectMapper binding each transaction
+	 * @param body the raw response body
+	 * @param consumer receives each transaction, in response order
+	 * @return the number of transactions read
+	 * @throws IOException if the body is not a valid transactions response
+	 */
+	public static int read(ObjectMapper mapper, Buffer body, Consumer<ListaTransactionDto> consumer) throws IOException {
+		int count = 0;
+		// a slice of the Netty buffer: no copy of the body, and the reader index of the Buffer is left as is
+		InputStream in = new ByteBufInputStream(((BufferImpl) body).byteBuf().slice());
+		try (JsonParser parser = mapper.getFactory().createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Transactions response is not a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken value = parser.nextToken();
+				if ("payload".equals(field) && value == JsonToken.START_OBJECT) {
+					count += readPayload(mapper, parser, consumer);
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int readPayload(ObjectMapper mapper, JsonParser parser, Consumer<ListaTransactionDto> consumer)
+			throws IOException {
+		int count = 0;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			if ("list".equals(field) && value == JsonToken.START_ARRAY) {
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					consumer.accept(mapper.readValue(parser, ListaTransactionDto.class));
+					count++;
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,265 @@
+package it.demo.fabrick.mapper;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.vertx.core.MultiMap;
+import it.demo.fabrick.dto.ListaTransactionDto;
+
+/**
+ * Filters, cursor pagination and field projection of a transactions list.
+ *
+ * Applied by HttpServerVerticle to the list returned for the date range, so identical
+ * range requests still share one call whatever their query.
+ *
+ * The cursor is opaque to clients: it encodes the accounting date and transactionId of
+ * the last returned transaction. The next page starts after that transaction or, if it
+ * is no longer in the list, from the first older accounting day.
+ */
+public final class TransactionQuery {
+
+	/** Max page size */
+	public static final int MAX_LIMIT = 1000;
+
+	/** Fields accepted by the {@code fields} projection */
+	public static final Set<String> FIELDS = Set.of("transactionId", "operationId", "accountingDate", "valueDate",
+		"type", "amount", "currency", "description");
+
+	private final Integer limit;
+	private final String cursorDate;
+	private final String cursorId;
+	private final Set<String> types;
+	private final BigDecimal minAmount;
+	private final BigDecimal maxAmount;
+	private final String currency;
+	private final List<String> fields;
+
+	/**
+	 * A page of transactions.
+	 *
+	 * @param items the transactions, or their projections (field name to value)
+	 * @param nextCursor cursor of the next page, null on the last page
+	 */
+	public record Page(List<?> items, String nextCursor) {
+	}
+
+	private TransactionQuery(Integer limit, String cursorDate, String cursorId, Set<String> types,
+			BigDecimal minAmount, BigDecimal maxAmount, String currency, List<String> fields) {
+		this.limit = limit;
+		this.cursorDate = cursorDate;
+		this.cursorId = cursorId;
+		this.types = types;
+		this.minAmount = minAmount;
+		this.maxAmount = maxAmount;
+		this.currency = currency;
+		this.fields = fields;
+	}
+
+	/**
+	 * Parse the query parameters: limit, cursor, type (type.enumeration, repeated or
+	 * comma-separated), minAmount, maxAmount, currency and fields (comma-separated).
+	 *
+	 * @param params the request query parameters
+	 * @return the query
+	 * @throws IllegalArgumentException with a client-facing message if a parameter is invalid
+	 */
+	public static TransactionQuery parse(MultiMap params) {
+		Integer limit = null;
+		String limitParam = params.get("limit");
+		if (limitParam != null) {
+			try {
+				limit = Integer.valueOf(limitParam);
+			} catch (NumberFormatException e) {
+				limit = -1;
+			}
+			if (limit < 1 || limit > MAX_LIMIT) {
+				throw new IllegalArgumentException("Invalid limit, expected 1 to " + MAX_LIMIT);
+			}
+		}
+
+		String cursorDate = null;
+		String cursorId = null;
+		String cursor = params.get("cursor");
+		if (cursor != null) {
+			String decoded;
+			try {
+				decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			} catch (IllegalArgumentException e) {
+				decoded = "";
+			}
+			int separator = decoded.indexOf('|');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			cursorDate = decoded.substring(0, separator);
+			cursorId = decoded.substring(separator + 1);
+		}
+
+		Set<String> types = null;
+		for (String type : split(params.getAll("type"))) {
+			if (types == null) {
+				types = new HashSet<String>();
+			}
+			types.add(type);
+		}
+
+		BigDecimal minAmount = amount(params.get("minAmount"), "minAmount");
+		BigDecimal maxAmount = amount(params.get("maxAmount"), "maxAmount");
+		if (minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) > 0) {
+			throw new IllegalArgumentException("Invalid amount range, minAmount is greater than maxAmount");
+		}
+
+		List<String> fields = null;
+		String fieldsParam = params.get("fields");
+		if (fieldsParam != null) {
+			fields = split(List.of(fieldsParam));
+			for (String field : fields) {
+				if (!FIELDS.contains(field)) {
+					throw new IllegalArgumentException("Invalid field '" + field + "', expected one of " + FIELDS);
+				}
+			}
+			if (fields.isEmpty()) {
+				throw new IllegalArgumentException("Invalid fields, expected one of " + FIELDS);
+			}
+		}
+
+		String currency = params.get("currency");
+		return new TransactionQuery(limit, cursorDate, cursorId, types, minAmount, maxAmount,
+			currency == null || currency.isBlank() ? null : currency.trim(), fields);
+	}
+
+	/**
+	 * Apply the query to the transactions of a date range.
+	 *
+	 * @param list the transactions, newest accounting day first; not modified
+	 * @return the page
+	 */
+	public Page apply(List<ListaTransactionDto> list) {
+		if (list == null) {
+			list = List.of();
+		}
+		if (limit == null && cursorId == null && !filtering() && fields == null) {
+			return new Page(list, null);
+		}
+
+		int start = 0;
+		if (cursorId != null) {
+			start = resumeIndex(list);
+		}
+
+		List<ListaTransactionDto> selected = new ArrayList<ListaTransactionDto>();
+		String nextCursor = null;
+		for (int i = start; i < list.size(); i++) {
+			ListaTransactionDto transaction = list.get(i);
+			if (!matches(transaction)) {
+				continue;
+			}
+			if (limit != null && selected.size() == limit) {
+				nextCursor = cursor(selected.get(selected.size() - 1));
+				break;
+			}
+			selected.add(transaction);
+		}
+
+		if (fields == null) {
+			return new Page(selected, nextCursor);
+		}
+		List<Map<String, Object>> projected = new ArrayList<Map<String, Object>>(selected.size());
+		for (ListaTransactionDto transaction : selected) {
+			projected.add(project(transaction));
+		}
+		return new Page(projected, nextCursor);
+	}
+
+	/**
+	 * Cursor pointing after the transaction.
+	 */
+	static String cursor(ListaTransactionDto transaction) {
+		String value = transaction.getAccountingDate() + "|"
+			+ (transaction.getTransactionId() == null ? "" : transaction.getTransactionId());
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private int resumeIndex(List<ListaTransactionDto> list) {
+		if (!cursorId.isEmpty()) {
+			for (int i = 0; i < list.size(); i++) {
+				if (cursorId.equals(list.get(i).getTransactionId())) {
+					return i + 1;
+				}
+			}
+		}
+		// cursor transaction gone (or without id): resume from the first older day
+		for (int i = 0; i < list.size(); i++) {
+			String day = list.get(i).getAccountingDate();
+			if (day != null && day.compareTo(cursorDate) < 0) {
+				return i;
+			}
+		}
+		return list.size();
+	}
+
+	private boolean filtering() {
+		return types != null || minAmount != null || maxAmount != null || currency != null;
+	}
+
+	private boolean matches(ListaTransactionDto transaction) {
+		if (types != null && (transaction.getType() == null || !types.contains(transaction.getType().getEnumeration()))) {
+			return false;
+		}
+		if (currency != null && !currency.equalsIgnoreCase(transaction.getCurrency())) {
+			return false;
+		}
+		BigDecimal amount = transaction.getAmount();
+		if (minAmount != null && (amount == null || amount.compareTo(minAmount) < 0)) {
+			return false;
+		}
+		return maxAmount == null || (amount != null && amount.compareTo(maxAmount) <= 0);
+	}
+
+	private Map<String, Object> project(ListaTransactionDto transaction) {
+		Map<String, Object> projection = new LinkedHashMap<String, Object>();
+		for (String field : fields) {
+			projection.put(field, switch (field) {
+				case "transactionId" -> transaction.getTransactionId();
+				case "operationId" -> transaction.getOperationId();
+				case "accountingDate" -> transaction.getAccountingDate();
+				case "valueDate" -> transaction.getValueDate();
+				case "type" -> transaction.getType();
+				case "amount" -> transaction.getAmount();
+				case "currency" -> transaction.getCurrency();
+				default -> transaction.getDescription();
+			});
+		}
+		return projection;
+	}
+
+	private static BigDecimal amount(String value, String name) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return new BigDecimal(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + ", expected a decimal number");
+		}
+	}
+
+	private static List<String> split(List<String> values) {
+		List<String> items = new ArrayList<String>();
+		for (String value : values) {
+			for (String item : value.split(",")) {
+				if (!item.isBlank()) {
+					items.add(item.trim());
+				}
+			}
+		}
+		return items;
+	}
+}
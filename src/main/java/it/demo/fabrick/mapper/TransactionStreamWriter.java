@@ -0,0 +1,129 @@
+package it.demo.fabrick.mapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+
+/**
+ * Streaming writer of a transactions list.
+ *
+ * Serializes the transactions a chunk at a time instead of materializing the whole
+ * response, and stops writing while the stream write queue is full, resuming from its
+ * drain handler. The JSON format has the same shape as the buffered
+ * {@link it.demo.fabrick.dto.rest.TransactionPageDto} last page; NDJSON writes one
+ * transaction (or projection) per line.
+ */
+public final class TransactionStreamWriter {
+
+	/** Target size of each written chunk, in bytes */
+	static final int CHUNK_SIZE = 16 * 1024;
+
+	private static final byte[] JSON_PREFIX = "{\"list\":[".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] JSON_SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+	public enum Format {
+		JSON,
+		NDJSON
+	}
+
+	private TransactionStreamWriter() {
+		// Private constructor to prevent instantiation
+	}
+
+	/**
+	 * Write the transactions to the stream and end it.
+	 *
+	 * Must be called on the stream context.
+	 *
+	 * @param mapper the ObjectMapper serializing each transaction
+	 * @param stream the destination stream (e.g. a chunked HttpServerResponse)
+	 * @param list the transactions or their projections, in response order
+	 * @param format the output format
+	 * @return a future completed when the stream is ended, failed on a write or serialization error
+	 */
+	public static Future<Void> write(ObjectMapper mapper, WriteStream<Buffer> stream, List<?> list,
+			Format format) {
+		Writer writer = new Writer(mapper, stream, list == null ? List.of() : list, format);
+		stream.exceptionHandler(writer::fail);
+		writer.pump();
+		return writer.promise.future();
+	}
+
+	private static final class Writer {
+
+		private final ObjectMapper mapper;
+		private final WriteStream<Buffer> stream;
+		private final List<?> list;
+		private final Format format;
+		private final Promise<Void> promise = Promise.promise();
+		private int index;
+		private boolean done;
+
+		Writer(ObjectMapper mapper, WriteStream<Buffer> stream, List<?> list, Format format) {
+			this.mapper = mapper;
+			this.stream = stream;
+			this.list = list;
+			this.format = format;
+		}
+
+		void pump() {
+			while (!done) {
+				if (stream.writeQueueFull()) {
+					stream.drainHandler(v -> pump());
+					return;
+				}
+				Buffer chunk;
+				try {
+					chunk = nextChunk();
+				} catch (JsonProcessingException e) {
+					fail(e);
+					return;
+				}
+				if (index == list.size()) {
+					done = true;
+					stream.end(chunk).onComplete(ar -> {
+						if (ar.succeeded()) {
+							promise.tryComplete();
+						} else {
+							promise.tryFail(ar.cause());
+						}
+					});
+				} else {
+					stream.write(chunk).onFailure(this::fail);
+				}
+			}
+		}
+
+		void fail(Throwable cause) {
+			done = true;
+			promise.tryFail(cause);
+		}
+
+		private Buffer nextChunk() throws JsonProcessingException {
+			Buffer chunk = Buffer.buffer(CHUNK_SIZE + 1024);
+			if (index == 0 && format == Format.JSON) {
+				chunk.appendBytes(JSON_PREFIX);
+			}
+			while (index < list.size() && chunk.length() < CHUNK_SIZE) {
+				if (index > 0 && format == Format.JSON) {
+					chunk.appendByte((byte) ',');
+				}
+				chunk.appendBytes(mapper.writeValueAsBytes(list.get(index++)));
+				if (format == Format.NDJSON) {
+					chunk.appendByte((byte) '\n');
+				}
+			}
+			if (index == list.size() && format == Format.JSON) {
+				chunk.appendBytes(JSON_SUFFIX);
+			}
+			return chunk;
+		}
+	}
+}
@@ -35,5 +35,22 @@ public class ApiConstants {
     public static final String REST_BALANCE_ENDPOINT = REST_API_BASE + "/balance";
     public static final String REST_TRANSACTIONS_ENDPOINT = REST_API_BASE + "/transactions";
     public static final String REST_MONEY_TRANSFER_ENDPOINT = REST_API_BASE + "/payments/money-transfers";
+    public static final String REST_MONEY_TRANSFER_STATUS_ENDPOINT = REST_MONEY_TRANSFER_ENDPOINT + "/:transferId";
+
+    /** RFC 7240 header and preference requesting an asynchronous money transfer (202 + status polling) */
+    public static final String PREFER_HEADER = "Prefer";
+    public static final String RESPOND_ASYNC = "respond-async";
+
+    /** Accept media type selecting the streamed newline-delimited JSON transactions response */
+    public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    /** Response header carrying the cursor of the next transactions page (also in the JSON body) */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /** Client header making money transfer retries safe */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /** Max length of the Idempotency-Key header (IDEMPOTENCY_KEY column size) */
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
 }
@@ -0,0 +1,46 @@
+package it.demo.fabrick.utils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inclusive range of accounting dates.
+ *
+ * @param from first day of the range
+ * @param to last day of the range
+ */
+public record DateRange(LocalDate from, LocalDate to) {
+
+    /**
+     * @param day the day to check
+     * @return true if the day is inside the range
+     */
+    public boolean contains(LocalDate day) {
+        return !day.isBefore(from) && !day.isAfter(to);
+    }
+
+    /**
+     * Split the range into consecutive sub-ranges of at most {@code maxDays} days.
+     *
+     * @param maxDays max days per sub-range, 0 or less to keep the range whole
+     * @return the sub-ranges covering the range, newest first
+     */
+    public List<DateRange> split(int maxDays) {
+        List<DateRange> ranges = new ArrayList<DateRange>();
+        if (maxDays <= 0) {
+            ranges.add(this);
+            return ranges;
+        }
+        for (LocalDate end = to; !end.isBefore(from); end = end.minusDays(maxDays)) {
+            LocalDate start = end.minusDays(maxDays - 1L);
+            ranges.add(new DateRange(start.isBefore(from) ? from : start, end));
+        }
+        return ranges;
+    }
+
+    @Override
+    public String toString() {
+        return from + ".." + to;
+    }
+}
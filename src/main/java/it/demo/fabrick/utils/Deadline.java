@@ -0,0 +1,49 @@
+package it.demo.fabrick.utils;
+
+import io.reactiverse.contextual.logging.ContextualData;
+import io.vertx.core.eventbus.DeliveryOptions;
+
+/**
+ * Request deadlines carried across the event bus.
+ *
+ * The HTTP verticle sends each request with {@link #deliveryOptions(long)}: the send
+ * timeout and the {@value #HEADER} header (absolute epoch millis) share the same deadline.
+ * The inbound interceptor copies the header into the consumer's contextual data, so
+ * the Fabrick client can bound its calls with {@link #remainingMillis()}.
+ */
+public final class Deadline {
+
+    /** Event bus header and contextual data key holding the absolute deadline (epoch millis) */
+    public static final String HEADER = "deadline";
+
+    private Deadline() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * @param timeoutMillis time allowed to the consumer from now
+     * @return delivery options with the send timeout and the deadline header
+     */
+    public static DeliveryOptions deliveryOptions(long timeoutMillis) {
+        return new DeliveryOptions()
+            .setSendTimeout(timeoutMillis)
+            .addHeader(HEADER, String.valueOf(System.currentTimeMillis() + timeoutMillis));
+    }
+
+    /**
+     * @param deadline the deadline header value
+     * @return milliseconds left before the deadline, negative if already passed
+     */
+    public static long remainingMillis(String deadline) {
+        return Long.parseLong(deadline) - System.currentTimeMillis();
+    }
+
+    /**
+     * @return milliseconds left before the deadline of the message being handled on
+     *         the current context, Long.MAX_VALUE if it has none
+     */
+    public static long remainingMillis() {
+        String deadline = ContextualData.get(HEADER);
+        return deadline != null ? remainingMillis(deadline) : Long.MAX_VALUE;
+    }
+}
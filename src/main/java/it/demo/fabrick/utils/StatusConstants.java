@@ -22,6 +22,12 @@ public class StatusConstants {
     /** Transfer status - executed successfully */
     public static final String STATUS_EXECUTED = "EXECUTED";
 
+    /** Transfer status - failed */
+    public static final String STATUS_FAILED = "FAILED";
+
+    /** Transfer status - outcome unknown, the transfer may have been executed */
+    public static final String STATUS_UNKNOWN = "UNKNOWN";
+
     /** Transfer status - canceled */
     public static final String STATUS_CANCELED = "CANCELED";
 
@@ -48,6 +54,12 @@ public class StatusConstants {
     /** Error message for unknown transfer status when validation enquiry is unavailable */
     public static final String ERROR_VALIDATION_UNAVAILABLE = "Transfer status unknown - validation enquiry unavailable. Please retry later.";
 
+    /** Error message for unknown transfer status when the async transfer exceeded its deadline */
+    public static final String ERROR_TRANSFER_DEADLINE_EXCEEDED = "Transfer status unknown - deadline exceeded. Retry only with the same Idempotency-Key.";
+
+    /** Error message when an async transfer id is unknown or expired */
+    public static final String ERROR_TRANSFER_NOT_FOUND = "Transfer not found or expired";
+
     // ==================== JSON Field Names ====================
 
     /** JSON field name for remittance information in Fabrick API */
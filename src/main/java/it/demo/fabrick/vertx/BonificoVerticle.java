@@ -1,8 +1,15 @@
 package it.demo.fabrick.vertx;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -10,16 +17,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.vertx.codegen.annotations.Nullable;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.http.HttpMethod;
-import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpResponse;
-import io.vertx.ext.web.client.WebClient;
+import it.demo.fabrick.cache.BalanceCache;
+import it.demo.fabrick.cache.IdempotencyStore;
+import it.demo.fabrick.client.FabrickClientFactory;
+import it.demo.fabrick.client.FabrickHttpClient;
+import it.demo.fabrick.client.FabrickUnavailableException;
 import it.demo.fabrick.dto.BonificoRequestDto;
 import it.demo.fabrick.dto.ErrorDto;
 import it.demo.fabrick.dto.ListaTransactionDto;
 import it.demo.fabrick.dto.TransactionDto;
+import it.demo.fabrick.dto.bus.BonificoBusRequestDto;
 import it.demo.fabrick.dto.rest.BonificoRestRequestDto;
 import it.demo.fabrick.dto.rest.BonificoRestResponseDto;
 import it.demo.fabrick.mapper.DtoMapper;
@@ -30,19 +45,31 @@ import it.demo.fabrick.utils.StatusConstants;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Slf4j
 public class BonificoVerticle extends AbstractVerticle {
 
 	private final ObjectMapper objectMapper;
 	private final String apiKey;
 	private final String authSchema;
+	private final FabrickClientFactory clientFactory;
+	private final BalanceCache balanceCache;
+	private final IdempotencyStore idempotencyStore;
+
+	private FabrickHttpClient fabrickClient;
 
 	public BonificoVerticle(ObjectMapper objectMapper,
 							@Value("${fabrick.apiKey}") String apiKey,
-							@Value("${fabrick.authSchema}") String authSchema) {
+							@Value("${fabrick.authSchema}") String authSchema,
+							FabrickClientFactory clientFactory,
+							BalanceCache balanceCache,
+							IdempotencyStore idempotencyStore) {
 		this.objectMapper = objectMapper;
 		this.apiKey = apiKey;
 		this.authSchema = authSchema;
+		this.clientFactory = clientFactory;
+		this.balanceCache = balanceCache;
+		this.idempotencyStore = idempotencyStore;
 	}
 
 	@Override
@@ -50,55 +77,105 @@ public class BonificoVerticle extends AbstractVerticle {
 
 		log.info("start - lanciato");
 
+		fabrickClient = clientFactory.create(vertx, "bonifico", apiKey, authSchema);
+
 		String bus = EventBusConstants.BONIFICO_BUS;
 		log.debug("mi sottoscrivo al bus '{}' ..", bus);
 		vertx.eventBus().consumer(bus, message -> {
 
 			lanciaChiamataEsterna(message);
 		});
+		startFuture.complete();
+	}
+
+	@Override
+	public void stop() throws Exception {
+		if (fabrickClient != null) {
+			fabrickClient.close();
+		}
 	}
 
 	public void lanciaChiamataEsterna(Message<Object> message) {
 
 		log.info("lanciaChiamataEsterna - start");
 
-		JsonObject json = (JsonObject) message.body();
+		BonificoBusRequestDto busRequest = (BonificoBusRequestDto) message.body();
+		String idempotencyKey = busRequest.getIdempotencyKey();
+
+		Future<BonificoRestResponseDto> result;
+		if (idempotencyKey == null) {
+			result = eseguiBonifico(busRequest);
+		} else {
+			// recorded here rather than in HttpServerVerticle: a transfer completing after the
+			// caller's delivery timeout is still stored for the client's retry
+			result = idempotencyStore.execute(vertx.getOrCreateContext(), idempotencyKey, fingerprint(busRequest),
+				() -> eseguiBonifico(busRequest));
+		}
+
+		result.onComplete(ar -> {
+			if (ar.succeeded()) {
+				message.reply(ar.result());
+			} else if (ar.cause() instanceof ReplyException failure) {
+				message.fail(failure.failureCode(), failure.getMessage());
+			} else {
+				String errorMessage = "ErrorCode " + ErrorCode.INTERNAL_ERROR + " - " + ar.cause().getMessage();
+				log.error(errorMessage, ar.cause());
+				message.fail(ErrorCode.INTERNAL_ERROR, errorMessage);
+			}
+		});
+	}
+
+	/**
+	 * Hash of the account and transfer request, to detect an Idempotency-Key reused for another transfer.
+	 */
+	private String fingerprint(BonificoBusRequestDto busRequest) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(busRequest.getAccountId().getBytes(StandardCharsets.UTF_8));
+			digest.update(objectMapper.writeValueAsBytes(busRequest.getRequest()));
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException | JsonProcessingException e) {
+			throw new IllegalStateException("Cannot compute request fingerprint", e);
+		}
+	}
+
+	/**
+	 * Execute the money transfer on Fabrick.
+	 *
+	 * @param busRequest the transfer request
+	 * @return the transfer response, or a ReplyException carrying the ErrorCode and message for the caller
+	 */
+	private Future<BonificoRestResponseDto> eseguiBonifico(BonificoBusRequestDto busRequest) {
+
+		Promise<BonificoRestResponseDto> promise = Promise.promise();
 
-		final String indirizzo = json.getString("indirizzo");
-		String requestId = json.getString("requestId");
-		final String requestJson = json.getString("request");
+		final String indirizzo = busRequest.getIndirizzo();
+		String requestId = busRequest.getRequestId();
+		// REST request DTO received by reference, already validated by HttpServerVerticle
+		final BonificoRestRequestDto restRequest = busRequest.getRequest();
 
 		log.info("message.body().\"indirizzo\" = {}", indirizzo);
 		log.info("message.body().\"requestId\" = {}", requestId);
 
-		WebClient client = WebClient.create(vertx);
 
 		ObjectMapper mapper = objectMapper;
 
-		// Parse the REST request DTO first (outside the callback)
-		final BonificoRestRequestDto restRequest;
-		final String requestString;
+		// Convert REST request DTO to Fabrick API request DTO (outside the callback)
+		final Buffer requestBody;
 		try {
-			restRequest = mapper.readValue(requestJson, BonificoRestRequestDto.class);
-
-			// Convert REST request DTO to Fabrick API request DTO
 			BonificoRequestDto request = DtoMapper.toBonificoRequestDto(restRequest);
-			requestString = mapper.writeValueAsString(request);
-			log.debug("requestString: {}", requestString);
+			requestBody = Buffer.buffer(mapper.writeValueAsBytes(request));
+			log.debug("requestBody: {}", requestBody);
 		} catch (JsonProcessingException e1) {
-			String errorMessage = "ErrorCode " + ErrorCode.VALIDATION_INVALID_REQUEST + " - Error parsing request JSON";
+			String errorMessage = "ErrorCode " + ErrorCode.INTERNAL_SERIALIZATION_ERROR + " - Error serializing request JSON";
 			log.error(errorMessage, e1);
-			message.fail(ErrorCode.VALIDATION_INVALID_REQUEST, errorMessage);
-			return;
+			promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.INTERNAL_SERIALIZATION_ERROR, errorMessage));
+			return promise.future();
 		}
 
 		log.debug("richiamo servizio REST ...");
-		client.requestAbs(HttpMethod.POST, indirizzo)
-				.putHeader("Content-Type", "application/json")
-				.putHeader("Auth-Schema", authSchema)
-				.putHeader("Api-Key", apiKey)
-				.putHeader("Content-Type", "application/json")
-				.sendBuffer(Buffer.buffer(requestString), ar -> {
+		fabrickClient.send(HttpMethod.POST, indirizzo, requestBody)
+				.onComplete(ar -> {
 					if (ar.succeeded()) {
 
 						HttpResponse<Buffer> response = ar.result();
@@ -112,7 +189,7 @@ public class BonificoVerticle extends AbstractVerticle {
 							// Check if this is HTTP 500 or 504 - perform validation enquiry
 							if (statusCode == 500 || statusCode == 504) {
 								log.warn("Received HTTP {} - performing validation enquiry to verify transfer status", statusCode);
-								performValidationEnquiry(message, restRequest, indirizzo);
+								performValidationEnquiry(promise, restRequest, indirizzo);
 								return;
 							}
 
@@ -121,7 +198,8 @@ public class BonificoVerticle extends AbstractVerticle {
 								errore = mapper.readValue(bodyAsString, ErrorDto.class);
 							} catch (JsonProcessingException e) {
 								log.error("Error parsing error response from Fabrick API", e);
-								message.fail(ErrorCode.API_PARSE_ERROR, "ErrorCode " + ErrorCode.API_PARSE_ERROR + " - Error parsing error response");
+								promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.API_PARSE_ERROR,
+									"ErrorCode " + ErrorCode.API_PARSE_ERROR + " - Error parsing error response"));
 								return;
 							}
 
@@ -135,47 +213,40 @@ public class BonificoVerticle extends AbstractVerticle {
 							log.error("Fabrick API error: {}", messaggioDiErrore);
 
 							// Return error response
-							BonificoRestResponseDto errorResponse = BonificoRestResponseDto.error(messaggioDiErrore);
-							try {
-								String errorJson = mapper.writeValueAsString(errorResponse);
-								message.reply(errorJson);
-							} catch (JsonProcessingException e) {
-								log.error("Error serializing error response to JSON", e);
-								message.fail(ErrorCode.INTERNAL_SERIALIZATION_ERROR, "ErrorCode " + ErrorCode.INTERNAL_SERIALIZATION_ERROR + " - Error serializing error response");
-							}
+							promise.complete(BonificoRestResponseDto.error(messaggioDiErrore));
 							return;
 						}
 
 						log.info("bodyAsString: {}", bodyAsString);
 
+						// the balance changed (or is about to): the cached one must not be served anymore
+						balanceCache.invalidate(busRequest.getAccountId());
+
 						// Return success response
-						BonificoRestResponseDto responseDto = BonificoRestResponseDto.success(StatusConstants.STATUS_PENDING);
-						try {
-							String jsonResponse = mapper.writeValueAsString(responseDto);
-							message.reply(jsonResponse);
-						} catch (JsonProcessingException e) {
-							log.error("Error serializing success response to JSON", e);
-							message.fail(ErrorCode.INTERNAL_SERIALIZATION_ERROR, "ErrorCode " + ErrorCode.INTERNAL_SERIALIZATION_ERROR + " - Error serializing success response");
-						}
+						promise.complete(BonificoRestResponseDto.success(StatusConstants.STATUS_PENDING));
 
+					} else if (ar.cause() instanceof TimeoutException) {
+						// no response to a request already sent: the transfer may have been executed
+						log.warn("No response to the money transfer - performing validation enquiry to verify transfer status", ar.cause());
+						performValidationEnquiry(promise, restRequest, indirizzo);
 					} else {
-						String errorMessage = String.format("ErrorCode %d - Unable to call Fabrick API, service may be down: %s",
-							ErrorCode.API_CONNECTION_FAILED, ar.cause().getMessage());
-						log.error(errorMessage, ar.cause());
-						message.fail(ErrorCode.API_CONNECTION_FAILED, errorMessage);
+						// connection failure, or call rejected by the endpoint circuit breaker / bulkhead
+						ReplyException failure = FabrickUnavailableException.toReplyException(ar.cause());
+						log.error(failure.getMessage(), ar.cause());
+						promise.fail(failure);
 					}
 				});
+		return promise.future();
 	}
 
 	/**
-	 * Perform validation enquiry by searching transactions to verify if a money transfer was executed.
-	 * Called when receiving HTTP 500 or HTTP 504 from money transfer endpoint.
+	 * Called when receiving HTTP 500 or HTTP 504, or no response at all, from money transfer endpoint.
 	 *
-	 * @param message the event bus message to reply to
+	 * @param promise the transfer result to complete
 	 * @param originalRequest the original money transfer request
 	 * @param transferUrl the money transfer URL (used to extract accountId)
 	 */
-	private void performValidationEnquiry(Message<Object> message, BonificoRestRequestDto originalRequest, String transferUrl) {
+	private void performValidationEnquiry(Promise<BonificoRestResponseDto> promise, BonificoRestRequestDto originalRequest, String transferUrl) {
 		log.info("performValidationEnquiry - starting validation enquiry");
 
 		// Extract accountId from the transfer URL
@@ -183,7 +254,7 @@ public class BonificoVerticle extends AbstractVerticle {
 		String accountId = extractAccountIdFromUrl(transferUrl);
 		if (accountId == null) {
 			log.error("Could not extract accountId from URL: {}", transferUrl);
-			sendErrorResponse(message, StatusConstants.ERROR_CANNOT_EXTRACT_ACCOUNT_ID);
+			sendErrorResponse(promise, StatusConstants.ERROR_CANNOT_EXTRACT_ACCOUNT_ID);
 			return;
 		}
 
@@ -200,14 +271,10 @@ public class BonificoVerticle extends AbstractVerticle {
 
 		log.info("Searching transactions with URL: {}", transactionsUrl);
 
-		WebClient client = WebClient.create(vertx);
 		ObjectMapper mapper = objectMapper;
 
-		client.requestAbs(HttpMethod.GET, transactionsUrl)
-			.putHeader("Auth-Schema", authSchema)
-			.putHeader("Api-Key", apiKey)
-			.putHeader("Content-Type", "application/json")
-			.send(ar -> {
+		fabrickClient.send(HttpMethod.GET, transactionsUrl, null)
+			.onComplete(ar -> {
 				if (ar.succeeded()) {
 					HttpResponse<Buffer> response = ar.result();
 					int statusCode = response.statusCode();
@@ -217,7 +284,7 @@ public class BonificoVerticle extends AbstractVerticle {
 
 					if (statusCode >= 300) {
 						log.error("Failed to retrieve transactions for validation enquiry, HTTP {}: {}", statusCode, bodyAsString);
-						sendErrorResponse(message, StatusConstants.ERROR_VALIDATION_ENQUIRY_FAILED);
+						sendErrorResponse(promise, StatusConstants.ERROR_VALIDATION_ENQUIRY_FAILED);
 						return;
 					}
 
@@ -228,20 +295,19 @@ public class BonificoVerticle extends AbstractVerticle {
 
 						if (found) {
 							log.info("Validation enquiry found matching transfer - money transfer was executed successfully");
-							BonificoRestResponseDto responseDto = BonificoRestResponseDto.success(StatusConstants.STATUS_EXECUTED);
-							String jsonResponse = mapper.writeValueAsString(responseDto);
-							message.reply(jsonResponse);
+							balanceCache.invalidate(accountId);
+							promise.complete(BonificoRestResponseDto.success(StatusConstants.STATUS_EXECUTED));
 						} else {
 							log.warn("Validation enquiry did not find matching transfer - money transfer was NOT executed");
-							sendErrorResponse(message, StatusConstants.ERROR_NO_MATCHING_TRANSACTION);
+							sendErrorResponse(promise, StatusConstants.ERROR_NO_MATCHING_TRANSACTION);
 						}
 					} catch (JsonProcessingException e) {
 						log.error("Error parsing transactions response for validation enquiry", e);
-						sendErrorResponse(message, StatusConstants.ERROR_VALIDATION_PARSING_FAILED);
+						sendErrorResponse(promise, StatusConstants.ERROR_VALIDATION_PARSING_FAILED);
 					}
 				} else {
 					log.error("Failed to call transactions API for validation enquiry", ar.cause());
-					sendErrorResponse(message, StatusConstants.ERROR_VALIDATION_UNAVAILABLE);
+					sendErrorResponse(promise, StatusConstants.ERROR_VALIDATION_UNAVAILABLE);
 				}
 			});
 	}
@@ -309,18 +375,10 @@ public class BonificoVerticle extends AbstractVerticle {
 	}
 
 	/**
-	 * Send error response to the event bus message.
+	 * Complete the transfer with an error response.
 	 */
-	private void sendErrorResponse(Message<Object> message, String errorMessage) {
-		ObjectMapper mapper = objectMapper;
-		BonificoRestResponseDto errorResponse = BonificoRestResponseDto.error(errorMessage);
-		try {
-			String errorJson = mapper.writeValueAsString(errorResponse);
-			message.reply(errorJson);
-		} catch (JsonProcessingException e) {
-			log.error("Error serializing error response to JSON", e);
-			message.fail(ErrorCode.INTERNAL_SERIALIZATION_ERROR, "ErrorCode " + ErrorCode.INTERNAL_SERIALIZATION_ERROR + " - Error serializing error response");
-		}
+	private void sendErrorResponse(Promise<BonificoRestResponseDto> promise, String errorMessage) {
+		promise.complete(BonificoRestResponseDto.error(errorMessage));
 	}
 
 }
@@ -1,15 +1,22 @@
 package it.demo.fabrick.vertx;
 
 import java.io.InputStream;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
@@ -17,10 +24,22 @@ import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.StaticHandler;
 import io.reactiverse.contextual.logging.ContextualData;
-import it.demo.fabrick.ContoDemoApplication;
+import it.demo.fabrick.admission.AdmissionController;
+import it.demo.fabrick.admission.RateLimiter;
+import it.demo.fabrick.cache.RequestCoalescer;
+import it.demo.fabrick.cache.TransferJobStore;
+import it.demo.fabrick.config.DeadlineProperties;
+import it.demo.fabrick.dto.bus.BonificoBusRequestDto;
 import it.demo.fabrick.dto.rest.BonificoRestRequestDto;
+import it.demo.fabrick.dto.rest.BonificoRestResponseDto;
+import it.demo.fabrick.dto.rest.TransactionPageDto;
+import it.demo.fabrick.dto.rest.TransazioniResponseDto;
+import it.demo.fabrick.dto.rest.TransferJobDto;
 import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.mapper.TransactionQuery;
+import it.demo.fabrick.mapper.TransactionStreamWriter;
 import it.demo.fabrick.utils.ApiConstants;
+import it.demo.fabrick.utils.Deadline;
 import it.demo.fabrick.utils.EventBusConstants;
 import it.demo.fabrick.utils.StatusConstants;
 import jakarta.validation.ConstraintViolation;
@@ -28,13 +47,20 @@ import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 /**
  * HTTP server verticle that exposes REST endpoints for banking operations
  * Replaces the TCP socket server
+ *
+ * Prototype scoped: ContoDemoApplication deploys one instance per event loop
+ * (http.server.instances) through SpringVerticleFactory, each with its own Router,
+ * all sharing the same port.
  */
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Slf4j
 public class HttpServerVerticle extends AbstractVerticle {
 
@@ -42,15 +68,33 @@ public class HttpServerVerticle extends AbstractVerticle {
     private final int httpPort;
     private final String accountId;
     private final Validator validator;
+    private final RequestCoalescer requestCoalescer;
+    private final TransferJobStore transferJobStore;
+    private final DeadlineProperties deadlines;
+    private final AdmissionController admissionController;
+    private final RateLimiter rateLimiter;
+    private final int streamingMinItems;
 
     public HttpServerVerticle(ObjectMapper objectMapper,
                               @Value("${http.server.port:8080}") int httpPort,
                               @Value("${fabrick.accountId}") String accountId,
-                              Validator validator) {
+                              Validator validator,
+                              RequestCoalescer requestCoalescer,
+                              TransferJobStore transferJobStore,
+                              DeadlineProperties deadlines,
+                              AdmissionController admissionController,
+                              RateLimiter rateLimiter,
+                              @Value("${transactions.streaming.minItems:1000}") int streamingMinItems) {
         this.objectMapper = objectMapper;
         this.httpPort = httpPort;
         this.accountId = accountId;
         this.validator = validator;
+        this.requestCoalescer = requestCoalescer;
+        this.transferJobStore = transferJobStore;
+        this.deadlines = deadlines;
+        this.admissionController = admissionController;
+        this.rateLimiter = rateLimiter;
+        this.streamingMinItems = streamingMinItems;
     }
 
     // API endpoints from ApiConstants
@@ -70,10 +114,20 @@ public class HttpServerVerticle extends AbstractVerticle {
         router.get("/openapi.json").handler(this::serveOpenApiJson);
         router.get("/swagger").handler(this::serveSwaggerUi);
 
-        // Register business endpoints
-        router.get(ApiConstants.REST_BALANCE_ENDPOINT).handler(this::handleBalance);
-        router.get(ApiConstants.REST_TRANSACTIONS_ENDPOINT).handler(this::handleTransactions);
-        router.post(ApiConstants.REST_MONEY_TRANSFER_ENDPOINT).handler(this::handleMoneyTransfer);
+        // Register business endpoints, behind per-client rate limiting and admission control
+        router.get(ApiConstants.REST_BALANCE_ENDPOINT)
+            .handler(rateLimiter.handler(AdmissionController.BALANCE))
+            .handler(admissionController.handler(AdmissionController.BALANCE))
+            .handler(this::handleBalance);
+        router.get(ApiConstants.REST_TRANSACTIONS_ENDPOINT)
+            .handler(rateLimiter.handler(AdmissionController.TRANSACTIONS))
+            .handler(admissionController.handler(AdmissionController.TRANSACTIONS))
+            .handler(this::handleTransactions);
+        router.post(ApiConstants.REST_MONEY_TRANSFER_ENDPOINT)
+            .handler(rateLimiter.handler(AdmissionController.MONEY_TRANSFER))
+            .handler(admissionController.handler(AdmissionController.MONEY_TRANSFER))
+            .handler(this::handleMoneyTransfer);
+        router.get(ApiConstants.REST_MONEY_TRANSFER_STATUS_ENDPOINT).handler(this::handleTransferStatus);
 
         server.requestHandler(router).listen(httpPort, http -> {
             if (http.succeeded()) {
@@ -103,14 +157,13 @@ public class HttpServerVerticle extends AbstractVerticle {
             .put("indirizzo", apiUrl)
             .put("requestId", requestId);
 
-        vertx.eventBus().request(EventBusConstants.SALDO_BUS, message,
-            ContoDemoApplication.getDefaultDeliverOptions(), ar -> {
+        // Identical in-flight balance requests share one event-bus call and one serialized response
+        String coalescingKey = EventBusConstants.SALDO_BUS + ":" + accountId;
+
+        requestCoalescer.execute(vertx.getOrCreateContext(), coalescingKey,
+            () -> requestJson(EventBusConstants.SALDO_BUS, message, deadlines.getBalance())).onComplete(ar -> {
                 if (ar.succeeded()) {
-                    String result = (String) ar.result().body();
-                    ctx.response()
-                        .setStatusCode(200)
-                        .putHeader("Content-Type", "application/json")
-                        .end(result);
+                    sendJson(ctx, ar.result());
                     log.info("Balance request completed successfully");
                 } else {
                     log.error("Balance request failed for requestId: {}", requestId, ar.cause());
@@ -153,6 +206,15 @@ public class HttpServerVerticle extends AbstractVerticle {
             return;
         }
 
+        TransactionQuery query;
+        try {
+            query = TransactionQuery.parse(ctx.queryParams());
+        } catch (IllegalArgumentException e) {
+            log.warn("{} for requestId: {}", e.getMessage(), requestId);
+            sendValidationError(ctx, e.getMessage(), requestId);
+            return;
+        }
+
         log.info("Received transactions request for accountId: {}, from: {}, to: {}",
             accountId, fromDate, toDate);
 
@@ -164,16 +226,33 @@ public class HttpServerVerticle extends AbstractVerticle {
         JsonObject message = new JsonObject()
             .put("accountId", accountId)
             .put("indirizzo", apiUrl)
-            .put("requestId", requestId);
-
-        vertx.eventBus().request(EventBusConstants.LISTA_BUS, message,
-            ContoDemoApplication.getDefaultDeliverOptions(), ar -> {
+            .put("requestId", requestId)
+            .put("fromAccountingDate", fromDate)
+            .put("toAccountingDate", toDate);
+
+        // Identical in-flight transactions requests share one event-bus call and the reply list;
+        // filters, pagination and projection are applied per caller
+        String coalescingKey = EventBusConstants.LISTA_BUS + ":" + accountId + ":" + fromDate + ":" + toDate;
+        String accept = ctx.request().getHeader("Accept");
+        boolean ndjson = accept != null && accept.contains(ApiConstants.NDJSON_CONTENT_TYPE);
+
+        requestCoalescer.execute(vertx.getOrCreateContext(), coalescingKey,
+            () -> this.<TransazioniResponseDto>request(EventBusConstants.LISTA_BUS, message, deadlines.getTransactions()))
+            .onComplete(ar -> {
                 if (ar.succeeded()) {
-                    String result = (String) ar.result().body();
-                    ctx.response()
-                        .setStatusCode(200)
-                        .putHeader("Content-Type", "application/json")
-                        .end(result);
+                    TransactionQuery.Page page = query.apply(ar.result().getList());
+                    if (page.nextCursor() != null) {
+                        ctx.response().putHeader(ApiConstants.NEXT_CURSOR_HEADER, page.nextCursor());
+                    }
+                    if (ndjson) {
+                        streamTransactions(ctx, page.items(), TransactionStreamWriter.Format.NDJSON, requestId);
+                    } else if (page.nextCursor() == null && page.items().size() >= streamingMinItems) {
+                        streamTransactions(ctx, page.items(), TransactionStreamWriter.Format.JSON, requestId);
+                    } else {
+                        toJson(new TransactionPageDto(page.items(), page.nextCursor()))
+                            .onSuccess(json -> sendJson(ctx, json))
+                            .onFailure(cause -> sendError(ctx, cause, requestId));
+                    }
                     log.info("Transactions request completed successfully");
                 } else {
                     log.error("Transactions request failed for requestId: {}", requestId, ar.cause());
@@ -210,31 +289,35 @@ public class HttpServerVerticle extends AbstractVerticle {
                 return;
             }
 
+            String idempotencyKey = ctx.request().getHeader(ApiConstants.IDEMPOTENCY_KEY_HEADER);
+            if (idempotencyKey != null
+                && (idempotencyKey.isBlank() || idempotencyKey.length() > ApiConstants.MAX_IDEMPOTENCY_KEY_LENGTH)) {
+                log.warn("Invalid Idempotency-Key header for requestId: {}", requestId);
+                sendValidationError(ctx, "Invalid Idempotency-Key header, expected 1 to "
+                    + ApiConstants.MAX_IDEMPOTENCY_KEY_LENGTH + " characters", requestId);
+                return;
+            }
+
             String apiUrl = ApiConstants.MONEY_TRANSFER_URL_TEMPLATE.replace("{accountId}", accountId);
 
-            // Convert the request object to JSON string for event bus transport
-            String requestJson = mapper.writeValueAsString(request);
-
-            JsonObject message = new JsonObject()
-                .put("accountId", accountId)
-                .put("indirizzo", apiUrl)
-                .put("requestId", requestId)
-                .put("request", requestJson);
-
-            vertx.eventBus().request(EventBusConstants.BONIFICO_BUS, message,
-                ContoDemoApplication.getDefaultDeliverOptions(), ar -> {
-                    if (ar.succeeded()) {
-                        String result = (String) ar.result().body();
-                        ctx.response()
-                            .setStatusCode(200)
-                            .putHeader("Content-Type", "application/json")
-                            .end(result);
-                        log.info("Money transfer request completed successfully");
-                    } else {
-                        log.error("Money transfer request failed for requestId: {}", requestId, ar.cause());
-                        sendError(ctx, ar.cause(), requestId);
-                    }
-                });
+            // The validated request object crosses the event bus by reference (LocalDtoCodec)
+            BonificoBusRequestDto message = new BonificoBusRequestDto(accountId, apiUrl, requestId, request, idempotencyKey);
+
+            String prefer = ctx.request().getHeader(ApiConstants.PREFER_HEADER);
+            if (prefer != null && prefer.toLowerCase().contains(ApiConstants.RESPOND_ASYNC)) {
+                submitTransferJob(ctx, message, requestId);
+                return;
+            }
+
+            requestJson(EventBusConstants.BONIFICO_BUS, message, deadlines.getMoneyTransfer()).onComplete(ar -> {
+                if (ar.succeeded()) {
+                    sendJson(ctx, ar.result());
+                    log.info("Money transfer request completed successfully");
+                } else {
+                    log.error("Money transfer request failed for requestId: {}", requestId, ar.cause());
+                    sendError(ctx, ar.cause(), requestId);
+                }
+            });
         } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
             log.error("Failed to parse request body for requestId: {}", requestId, e);
             sendValidationError(ctx, "Invalid JSON in request body: " + e.getOriginalMessage(), requestId);
@@ -347,6 +430,150 @@ public class HttpServerVerticle extends AbstractVerticle {
             .end(swaggerHtml);
     }
 
+    /**
+     * Async money transfer: reply 202 with the transfer id and run the transfer in the background.
+     * The transferId is the requestId, so the logs of the background transfer can be correlated.
+     * The admission permit is kept until the transfer completes, bounding the background transfers.
+     */
+    private void submitTransferJob(RoutingContext ctx, BonificoBusRequestDto message, String requestId) {
+        TransferJobDto job = transferJobStore.create(requestId);
+        Runnable releasePermit = AdmissionController.detach(ctx);
+
+        vertx.eventBus()
+            .<BonificoRestResponseDto>request(EventBusConstants.BONIFICO_BUS, message,
+                Deadline.deliveryOptions(deadlines.getMoneyTransfer()))
+            .onComplete(ar -> {
+                if (ar.succeeded()) {
+                    transferJobStore.complete(vertx, requestId, ar.result().body());
+                } else if (ar.cause() instanceof ReplyException reply && reply.failureType() == ReplyFailure.TIMEOUT) {
+                    // the transfer may still reach Fabrick after the deadline
+                    log.warn("Async money transfer deadline exceeded for transferId: {}", requestId);
+                    transferJobStore.unknown(vertx, requestId, "ErrorCode " + ErrorCode.DEADLINE_EXCEEDED + " - "
+                        + StatusConstants.ERROR_TRANSFER_DEADLINE_EXCEEDED);
+                } else {
+                    log.error("Async money transfer failed for transferId: {}", requestId, ar.cause());
+                    transferJobStore.fail(vertx, requestId, ar.cause().getMessage());
+                }
+                releasePermit.run();
+            });
+
+        log.info("Money transfer accepted for async execution, transferId: {}", requestId);
+        ctx.response()
+            .putHeader("Location", ApiConstants.REST_MONEY_TRANSFER_ENDPOINT + "/" + requestId)
+            .putHeader("Preference-Applied", ApiConstants.RESPOND_ASYNC);
+        sendTransferJob(ctx, 202, job, requestId);
+    }
+
+    /**
+     * GET /api/accounts/payments/money-transfers/:transferId
+     */
+    private void handleTransferStatus(RoutingContext ctx) {
+        String requestId = java.util.UUID.randomUUID().toString();
+        ContextualData.put("requestId", requestId);
+
+        String transferId = ctx.pathParam("transferId");
+        TransferJobDto job = transferJobStore.get(transferId);
+        if (job == null) {
+            log.warn("Transfer status requested for unknown transferId: {}", transferId);
+            sendError(ctx, new NoSuchElementException("ErrorCode " + ErrorCode.NOT_FOUND + " - "
+                + StatusConstants.ERROR_TRANSFER_NOT_FOUND + ": " + transferId), requestId);
+            return;
+        }
+        sendTransferJob(ctx, 200, job, requestId);
+    }
+
+    private void sendTransferJob(RoutingContext ctx, int statusCode, TransferJobDto job, String requestId) {
+        try {
+            ctx.response()
+                .setStatusCode(statusCode)
+                .putHeader("Content-Type", "application/json")
+                .end(Buffer.buffer(objectMapper.writeValueAsBytes(job)));
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            log.error("Error serializing transfer job to JSON", e);
+            sendError(ctx, new IllegalStateException("ErrorCode " + ErrorCode.INTERNAL_SERIALIZATION_ERROR
+                + " - Error serializing response"), requestId);
+        }
+    }
+
+    /**
+     * Send a request on the event bus and serialize the reply DTO to JSON.
+     *
+     * @param deadlineMillis endpoint deadline, carried to the consumer as a message header
+     */
+    private Future<Buffer> requestJson(String address, Object message, long deadlineMillis) {
+        return request(address, message, deadlineMillis).compose(this::toJson);
+    }
+
+    /**
+     * Send a request on the event bus and return the reply DTO.
+     *
+     * @param deadlineMillis endpoint deadline, carried to the consumer as a message header
+     */
+    private <T> Future<T> request(String address, Object message, long deadlineMillis) {
+        return vertx.eventBus()
+            .<T>request(address, message, Deadline.deliveryOptions(deadlineMillis))
+            .recover(this::deadlineExceeded)
+            .map(Message::body);
+    }
+
+    /**
+     * Serialize a reply DTO to JSON.
+     */
+    private Future<Buffer> toJson(Object body) {
+        try {
+            return Future.succeededFuture(Buffer.buffer(objectMapper.writeValueAsBytes(body)));
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            log.error("Error serializing response to JSON", e);
+            return Future.failedFuture("ErrorCode " + ErrorCode.INTERNAL_SERIALIZATION_ERROR
+                + " - Error serializing response");
+        }
+    }
+
+    /**
+     * Stream the transactions with chunked transfer encoding, following the response
+     * write queue (backpressure) instead of serializing the whole list up front.
+     * Once the head is written an error can only reset the connection.
+     */
+    private void streamTransactions(RoutingContext ctx, List<?> list,
+                                    TransactionStreamWriter.Format format, String requestId) {
+        HttpServerResponse response = ctx.response()
+            .setStatusCode(200)
+            .setChunked(true)
+            .putHeader("Content-Type", format == TransactionStreamWriter.Format.NDJSON
+                ? ApiConstants.NDJSON_CONTENT_TYPE : "application/json");
+
+        TransactionStreamWriter.write(objectMapper, response, list, format).onFailure(cause -> {
+            log.error("Transactions stream failed for requestId: {}", requestId, cause);
+            if (!response.headWritten()) {
+                sendError(ctx, new IllegalStateException("ErrorCode " + ErrorCode.INTERNAL_SERIALIZATION_ERROR
+                    + " - Error serializing response"), requestId);
+            } else if (!response.closed()) {
+                response.reset();
+            }
+        });
+    }
+
+    /**
+     * Map the event bus send timeout, which is the endpoint deadline, to ErrorCode DEADLINE_EXCEEDED.
+     */
+    private <T> Future<T> deadlineExceeded(Throwable cause) {
+        if (cause instanceof ReplyException reply && reply.failureType() == ReplyFailure.TIMEOUT) {
+            return Future.failedFuture("ErrorCode " + ErrorCode.DEADLINE_EXCEEDED + " - Deadline exceeded: "
+                + cause.getMessage());
+        }
+        return Future.failedFuture(cause);
+    }
+
+    /**
+     * Send a JSON response with HTTP 200 status code.
+     */
+    private void sendJson(RoutingContext ctx, Buffer json) {
+        ctx.response()
+            .setStatusCode(200)
+            .putHeader("Content-Type", "application/json")
+            .end(json);
+    }
+
     /**
      * Send error response with appropriate HTTP status code based on the cause.
      */
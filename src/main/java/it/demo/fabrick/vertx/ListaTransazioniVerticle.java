@@ -1,6 +1,19 @@
 package it.demo.fabrick.vertx;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -8,35 +21,64 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.vertx.codegen.annotations.Nullable;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.Message;
-import io.vertx.core.http.HttpMethod;
-import io.vertx.core.json.JsonArray;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpResponse;
-import io.vertx.ext.web.client.WebClient;
+import it.demo.fabrick.cache.TransactionDayCache;
+import it.demo.fabrick.cache.TransactionHistoryStore;
+import it.demo.fabrick.client.FabrickClientFactory;
+import it.demo.fabrick.client.FabrickHttpClient;
+import it.demo.fabrick.client.FabrickUnavailableException;
 import it.demo.fabrick.dto.ListaTransactionDto;
-import it.demo.fabrick.dto.TransactionDto;
+import it.demo.fabrick.dto.bus.TransactionPersistenceRequestDto;
 import it.demo.fabrick.dto.rest.TransazioniResponseDto;
-import it.demo.fabrick.mapper.DtoMapper;
+import it.demo.fabrick.mapper.TransactionListReader;
 import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.utils.ApiConstants;
+import it.demo.fabrick.utils.DateRange;
 import it.demo.fabrick.utils.EventBusConstants;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Slf4j
 public class ListaTransazioniVerticle extends AbstractVerticle {
 
 	private final ObjectMapper objectMapper;
 	private final String apiKey;
 	private final String authSchema;
+	private final FabrickClientFactory clientFactory;
+	private final TransactionDayCache transactionDayCache;
+	private final TransactionHistoryStore transactionHistoryStore;
+	private final int persistenceBatchSize;
+	private final int fanoutMaxDays;
+	private final int fanoutConcurrency;
+
+	private FabrickHttpClient fabrickClient;
 
 	public ListaTransazioniVerticle(ObjectMapper objectMapper,
 									 @Value("${fabrick.apiKey}") String apiKey,
-									 @Value("${fabrick.authSchema}") String authSchema) {
+									 @Value("${fabrick.authSchema}") String authSchema,
+									 FabrickClientFactory clientFactory,
+									 TransactionDayCache transactionDayCache,
+									 TransactionHistoryStore transactionHistoryStore,
+									 @Value("${transactions.persistence.batchSize:500}") int persistenceBatchSize,
+									 @Value("${transactions.fanout.maxDays:31}") int fanoutMaxDays,
+									 @Value("${transactions.fanout.concurrency:4}") int fanoutConcurrency) {
 		this.objectMapper = objectMapper;
 		this.apiKey = apiKey;
 		this.authSchema = authSchema;
+		this.clientFactory = clientFactory;
+		this.transactionDayCache = transactionDayCache;
+		this.transactionHistoryStore = transactionHistoryStore;
+		this.persistenceBatchSize = persistenceBatchSize;
+		this.fanoutMaxDays = fanoutMaxDays;
+		this.fanoutConcurrency = Math.max(1, fanoutConcurrency);
 	}
 
 	@Override
@@ -44,12 +86,22 @@ public class ListaTransazioniVerticle extends AbstractVerticle {
 
 		log.info("start - lanciato");
 
+		fabrickClient = clientFactory.create(vertx, "lista", apiKey, authSchema);
+
 		String bus = EventBusConstants.LISTA_BUS;
 		log.debug("mi sottoscrivo al bus '{}' ..", bus);
 		vertx.eventBus().consumer(bus, message -> {
 
 			lanciaChiamataEsterna(message);
 		});
+		startFuture.complete();
+	}
+
+	@Override
+	public void stop() throws Exception {
+		if (fabrickClient != null) {
+			fabrickClient.close();
+		}
 	}
 
 	public void lanciaChiamataEsterna(Message<Object> message) {
@@ -58,32 +110,207 @@ public class ListaTransazioniVerticle extends AbstractVerticle {
 
 		JsonObject json = (JsonObject) message.body();
 
+		String accountId = json.getString("accountId");
 		String indirizzo = json.getString("indirizzo");
 		String requestId = json.getString("requestId");
 
 		log.info("message.body().\"indirizzo\" = {}", indirizzo);
 		log.info("message.body().\"requestId\" = {}", requestId);
 
-		WebClient client = WebClient.create(vertx);
+		DateRange range = parseRange(json);
+		if (range == null) {
+			// no usable accounting dates: single call on the given URL, nothing cached
+			fetchTransactions(accountId, indirizzo, null, requestId).onComplete(ar -> {
+				if (ar.succeeded()) {
+					reply(message, ar.result());
+				} else {
+					fail(message, ar.cause());
+				}
+			});
+			return;
+		}
+
+		// past days come from the day cache, then from the synced local history;
+		// only days never synced and still mutable days go to Fabrick
+		TransactionDayCache.Lookup lookup = transactionDayCache.get(accountId, range.from(), range.to());
+		transactionHistoryStore.find(vertx, accountId, lookup.missing()).onComplete(historyRes -> {
+			TransactionDayCache.Lookup history = historyRes.result();
+			history.cachedDays().forEach((day, list) -> transactionDayCache.put(accountId, new DateRange(day, day), list));
+			log.info("{} giorni da cache, {} da storico locale, intervalli da richiedere a Fabrick: {}",
+				lookup.cachedDays().size(), history.cachedDays().size(), history.missing());
+
+			Map<LocalDate, List<ListaTransactionDto>> known =
+				new HashMap<LocalDate, List<ListaTransactionDto>>(lookup.cachedDays());
+			known.putAll(history.cachedDays());
+			fetchAndReply(message, accountId, requestId, range, known, history.missing());
+		});
+	}
+
+	/**
+	 * Fetch the missing ranges from Fabrick and reply with the whole range.
+	 *
+	 * @param known transactions of the days already available, by accounting day
+	 * @param missingRanges ranges to fetch from Fabrick, newest first
+	 */
+	private void fetchAndReply(Message<Object> message, String accountId, String requestId, DateRange range,
+							   Map<LocalDate, List<ListaTransactionDto>> known, List<DateRange> missingRanges) {
+		// large missing ranges are split into sub-ranges, fetched in parallel up to fanoutConcurrency calls
+		List<DateRange> ranges = new ArrayList<DateRange>();
+		for (DateRange missing : missingRanges) {
+			ranges.addAll(missing.split(fanoutMaxDays));
+		}
+		if (ranges.size() > missingRanges.size()) {
+			log.info("intervalli suddivisi in {} sotto-intervalli di max {} giorni", ranges.size(), fanoutMaxDays);
+		}
+
+		fetchRanges(accountId, ranges, requestId).onComplete(ar -> {
+			if (ar.failed()) {
+				fail(message, ar.cause());
+				return;
+			}
+
+			Map<LocalDate, List<ListaTransactionDto>> days = known;
+			List<ListaTransactionDto> undated = new ArrayList<ListaTransactionDto>();
+			for (int i = 0; i < ranges.size(); i++) {
+				TransactionDayCache.bucketByDay(ar.result().get(i), ranges.get(i), days, undated);
+			}
+
+			// newest accounting day first, as returned by Fabrick; a transaction returned by
+			// more than one sub-range is kept once
+			List<ListaTransactionDto> result = new ArrayList<ListaTransactionDto>();
+			Set<String> seen = new HashSet<String>();
+			for (LocalDate day = range.to(); !day.isBefore(range.from()); day = day.minusDays(1)) {
+				addDistinct(days.getOrDefault(day, Collections.emptyList()), seen, result);
+			}
+			addDistinct(undated, seen, result);
+
+			reply(message, result);
+		});
+	}
+
+	/**
+	 * Fetch the ranges from Fabrick with at most fanoutConcurrency calls in flight,
+	 * caching the immutable days of each range as it completes.
+	 * Fails on the first failed call.
+	 *
+	 * @return the transactions of each range, in the order of the ranges
+	 */
+	private Future<List<List<ListaTransactionDto>>> fetchRanges(String accountId, List<DateRange> ranges, String requestId) {
+		Promise<List<List<ListaTransactionDto>>> promise = Promise.promise();
+		List<List<ListaTransactionDto>> results = new ArrayList<List<ListaTransactionDto>>(Collections.nCopies(ranges.size(), null));
+		if (ranges.isEmpty()) {
+			promise.complete(results);
+			return promise.future();
+		}
+
+		// callbacks run on the verticle event loop: plain counters are enough
+		int[] next = {0};
+		int[] completed = {0};
+		Runnable[] launch = new Runnable[1];
+		launch[0] = () -> {
+			if (promise.future().isComplete() || next[0] >= ranges.size()) {
+				return;
+			}
+			int i = next[0]++;
+			DateRange subRange = ranges.get(i);
+			String url = String.format(ApiConstants.TRANSACTIONS_URL_FORMAT, accountId, subRange.from(), subRange.to());
+			fetchTransactions(accountId, url, subRange, requestId).onComplete(ar -> {
+				if (ar.failed()) {
+					promise.tryFail(ar.cause());
+					return;
+				}
+				transactionDayCache.put(accountId, subRange, ar.result());
+				results.set(i, ar.result());
+				if (++completed[0] == ranges.size()) {
+					promise.tryComplete(results);
+				} else {
+					launch[0].run();
+				}
+			});
+		};
+		for (int k = 0; k < Math.min(fanoutConcurrency, ranges.size()); k++) {
+			launch[0].run();
+		}
+		return promise.future();
+	}
+
+	/**
+	 * Append the transactions whose transactionId was not seen yet; transactions without id are always kept.
+	 */
+	private static void addDistinct(List<ListaTransactionDto> transactions, Set<String> seen,
+									List<ListaTransactionDto> result) {
+		for (ListaTransactionDto transaction : transactions) {
+			if (transaction.getTransactionId() == null || seen.add(transaction.getTransactionId())) {
+				result.add(transaction);
+			}
+		}
+	}
+
+	/**
+	 * Accounting date range of the request.
+	 *
+	 * @return the range, or null if the dates are missing, invalid or reversed
+	 */
+	private static DateRange parseRange(JsonObject json) {
+		String fromDate = json.getString("fromAccountingDate");
+		String toDate = json.getString("toAccountingDate");
+		if (fromDate == null || toDate == null) {
+			return null;
+		}
+		try {
+			LocalDate from = LocalDate.parse(fromDate);
+			LocalDate to = LocalDate.parse(toDate);
+			return from.isAfter(to) ? null : new DateRange(from, to);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private static void reply(Message<Object> message, List<ListaTransactionDto> list) {
+		// sent by reference, serialized once by HttpServerVerticle
+		TransazioniResponseDto responseDto = new TransazioniResponseDto();
+		responseDto.setList(list);
+		message.reply(responseDto);
+	}
+
+	private static void fail(Message<Object> message, Throwable cause) {
+		ReplyException failure = (ReplyException) cause;
+		message.fail(failure.failureCode(), failure.getMessage());
+	}
+
+	/**
+	 * Call the Fabrick transactions API.
+	 * The response body is read as a stream of transactions straight from the response buffer;
+	 * the freshly fetched transactions are sent to the persistence verticle in batches while
+	 * they are read. Once every batch is stored, the immutable days of the fetched range are
+	 * marked as synced and served by the local history from then on.
+	 *
+	 * @param accountId the account ID
+	 * @param indirizzo the Fabrick transactions URL
+	 * @param range the accounting dates the URL covers, null if unknown (nothing is marked synced)
+	 * @param requestId the request ID for logging
+	 * @return the transactions, or a ReplyException carrying the ErrorCode and message for the caller
+	 */
+	private Future<List<ListaTransactionDto>> fetchTransactions(String accountId, String indirizzo, DateRange range,
+																String requestId) {
+
 		ObjectMapper mapper = objectMapper;
+		Promise<List<ListaTransactionDto>> promise = Promise.promise();
 
 		log.debug("richiamo servizio REST ...");
-		client.requestAbs(HttpMethod.GET, indirizzo)
-				.putHeader("Content-Type", "application/json")
-				.putHeader("Auth-Schema", authSchema)
-				.putHeader("Api-Key", apiKey)
-				.putHeader("Content-Type", "application/json")
-				.sendBuffer(Buffer.buffer(""), ar -> {
+		fabrickClient.get(indirizzo)
+				.onComplete(ar -> {
 					if (ar.succeeded()) {
 
 						HttpResponse<Buffer> response = ar.result();
 						int statusCode = response.statusCode();
-						@Nullable
-						String bodyAsString = response.bodyAsString();
 
 						log.info("Received response with status code: {}", statusCode);
 
 						if (statusCode >= 300) {
+							@Nullable
+							String bodyAsString = response.bodyAsString();
+
 							// Try to parse ErrorDto from Fabrick API response
 							it.demo.fabrick.dto.ErrorDto errorDto = null;
 							try {
@@ -106,86 +333,89 @@ public class ListaTransazioniVerticle extends AbstractVerticle {
 								errorMessage = "ErrorCode " + ErrorCode.API_ERROR + " - API returned HTTP " + statusCode + ": " + bodyAsString;
 								log.error(errorMessage);
 							}
-							message.fail(ErrorCode.API_ERROR, errorMessage);
+							promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.API_ERROR, errorMessage));
 							return;
 						}
 
-						log.info("bodyAsString: {}", bodyAsString);
+						Buffer body = response.body();
+						log.debug("response body: {} bytes", body != null ? body.length() : 0);
 
-						TransactionDto transaction = null;
-						String listaTransazioni = null;
+						List<ListaTransactionDto> list = new ArrayList<ListaTransactionDto>();
+						List<Future<Void>> batches = new ArrayList<Future<Void>>();
+						int[] persisted = {0};
 						try {
-							transaction = mapper.readValue(bodyAsString, TransactionDto.class);
-
-							// Convert to REST response DTO using DtoMapper
-							TransazioniResponseDto responseDto = DtoMapper.toTransazioniResponseDto(transaction);
-							listaTransazioni = mapper.writeValueAsString(responseDto);
-						} catch (JsonProcessingException e) {
+							if (body == null) {
+								throw new IOException("Empty transactions response");
+							}
+							TransactionListReader.read(mapper, body, transaction -> {
+								list.add(transaction);
+								if (list.size() - persisted[0] >= persistenceBatchSize) {
+									batches.add(triggerAsyncPersistence(accountId,
+										new ArrayList<ListaTransactionDto>(list.subList(persisted[0], list.size())), null, requestId));
+									persisted[0] = list.size();
+								}
+							});
+						} catch (IOException e) {
 							log.error("Error parsing JSON response from Fabrick API", e);
-							message.fail(ErrorCode.API_PARSE_ERROR, "ErrorCode " + ErrorCode.API_PARSE_ERROR + " - Error parsing JSON response");
+							promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.API_PARSE_ERROR,
+								"ErrorCode " + ErrorCode.API_PARSE_ERROR + " - Error parsing JSON response"));
 							return;
 						}
+						// the last batch marks the range synced, only after the previous batches are stored
+						List<ListaTransactionDto> tail = new ArrayList<ListaTransactionDto>(list.subList(persisted[0], list.size()));
+						DateRange synced = range != null ? transactionDayCache.immutableDays(range) : null;
+						Future.all(batches).onComplete(stored ->
+							triggerAsyncPersistence(accountId, tail, stored.succeeded() ? synced : null, requestId));
 
-						message.reply(listaTransazioni);
-
-						// After replying to the REST API, trigger async database write
-						// This is fire-and-forget - the client has already received the response
-						triggerAsyncPersistence(transaction, requestId);
+						promise.complete(list);
 
 					} else {
-						String errorMessage = String.format("ErrorCode %d - Unable to call Fabrick API, service may be down: %s",
-							ErrorCode.API_CONNECTION_FAILED, ar.cause().getMessage());
-						log.error(errorMessage, ar.cause());
-						message.fail(ErrorCode.API_CONNECTION_FAILED, errorMessage);
+						// connection failure, or call rejected by the endpoint circuit breaker / bulkhead
+						ReplyException failure = FabrickUnavailableException.toReplyException(ar.cause());
+						log.error(failure.getMessage(), ar.cause());
+						promise.fail(failure);
 					}
 				});
+		return promise.future();
 	}
 
+
 	/**
 	 * Trigger asynchronous persistence of transactions to the database.
 	 * This method sends the transactions to the persistence verticle via event bus.
 	 *
-	 * @param transaction the transaction DTO containing the list of transactions
+	 * @param accountId the account the transactions belong to
+	 * @param transactions the transactions to persist
+	 * @param synced accounting days to mark as synced once the transactions are stored, or null
 	 * @param requestId the request ID for logging
+	 * @return a future completed once the transactions are stored; the REST response never waits for it
 	 */
-	private void triggerAsyncPersistence(TransactionDto transaction, String requestId) {
+	private Future<Void> triggerAsyncPersistence(String accountId, List<ListaTransactionDto> transactions,
+												 DateRange synced, String requestId) {
 		try {
-			// Check if there are transactions to persist
-			if (transaction == null || transaction.getPayload() == null ||
-				transaction.getPayload().getList() == null ||
-				transaction.getPayload().getList().isEmpty()) {
+			// Check if there is anything to persist
+			if (transactions.isEmpty() && synced == null) {
 				log.debug("No transactions to persist for requestId: {}", requestId);
-				return;
+				return Future.succeededFuture();
 			}
 
 			log.info("Triggering async persistence of {} transactions for requestId: {}",
-				transaction.getPayload().getList().size(), requestId);
-
-			// Convert the transaction list to JsonArray for event bus transport
-			// We need to convert DTOs to Map/JsonObject because Vert.x JSON codec
-			// cannot serialize arbitrary Java objects
-			ObjectMapper mapper = objectMapper;
-			JsonArray transactionsArray = new JsonArray();
-
-			for (it.demo.fabrick.dto.ListaTransactionDto dto : transaction.getPayload().getList()) {
-				// Convert DTO to Map using Jackson, then to JsonObject
-				@SuppressWarnings("unchecked")
-				java.util.Map<String, Object> map = mapper.convertValue(dto, java.util.Map.class);
-				transactionsArray.add(new JsonObject(map));
-			}
-
-			JsonObject persistenceMessage = new JsonObject()
-				.put("requestId", requestId)
-				.put("transactions", transactionsArray);
+				transactions.size(), requestId);
 
-			// Send to persistence verticle (fire-and-forget)
-			vertx.eventBus().send(EventBusConstants.TRANSACTION_PERSISTENCE_BUS, persistenceMessage);
+			// The transaction list crosses the event bus by reference (LocalDtoCodec)
+			TransactionPersistenceRequestDto persistenceMessage = new TransactionPersistenceRequestDto(requestId,
+				accountId, transactions, synced != null ? synced.from().toString() : null,
+				synced != null ? synced.to().toString() : null);
 
-			log.debug("Async persistence triggered for requestId: {}", requestId);
+			// Send to persistence verticle: the reply only tells whether the batch was stored
+			return vertx.eventBus().request(EventBusConstants.TRANSACTION_PERSISTENCE_BUS, persistenceMessage)
+				.onFailure(e -> log.error("Async persistence failed for requestId: {}", requestId, e))
+				.mapEmpty();
 
 		} catch (Exception e) {
 			// Log error but don't fail - the REST response has already been sent
 			log.error("Error triggering async persistence for requestId: {}", requestId, e);
+			return Future.failedFuture(e);
 		}
 	}
 
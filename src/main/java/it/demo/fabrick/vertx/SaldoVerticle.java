@@ -1,6 +1,8 @@
 package it.demo.fabrick.vertx;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -8,12 +10,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.vertx.codegen.annotations.Nullable;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.Message;
-import io.vertx.core.http.HttpMethod;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpResponse;
-import io.vertx.ext.web.client.WebClient;
+import it.demo.fabrick.cache.BalanceCache;
+import it.demo.fabrick.client.FabrickClientFactory;
+import it.demo.fabrick.client.FabrickHttpClient;
+import it.demo.fabrick.client.FabrickUnavailableException;
 import it.demo.fabrick.dto.BalanceDto;
 import it.demo.fabrick.dto.rest.SaldoResponseDto;
 import it.demo.fabrick.error.ErrorCode;
@@ -21,19 +29,28 @@ import it.demo.fabrick.utils.EventBusConstants;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Slf4j
 public class SaldoVerticle extends AbstractVerticle {
 
 	private final ObjectMapper objectMapper;
 	private final String apiKey;
 	private final String authSchema;
+	private final FabrickClientFactory clientFactory;
+	private final BalanceCache balanceCache;
+
+	private FabrickHttpClient fabrickClient;
 
 	public SaldoVerticle(ObjectMapper objectMapper,
 						 @Value("${fabrick.apiKey}") String apiKey,
-						 @Value("${fabrick.authSchema}") String authSchema) {
+						 @Value("${fabrick.authSchema}") String authSchema,
+						 FabrickClientFactory clientFactory,
+						 BalanceCache balanceCache) {
 		this.objectMapper = objectMapper;
 		this.apiKey = apiKey;
 		this.authSchema = authSchema;
+		this.clientFactory = clientFactory;
+		this.balanceCache = balanceCache;
 	}
 
 	@Override
@@ -41,12 +58,22 @@ public class SaldoVerticle extends AbstractVerticle {
 
 		log.info("start - lanciato");
 
+		fabrickClient = clientFactory.create(vertx, "saldo", apiKey, authSchema);
+
 		String bus = EventBusConstants.SALDO_BUS;
 		log.debug("mi sottoscrivo al bus '{}' ..", bus);
 		vertx.eventBus().consumer(bus, message -> {
 
 			lanciaChiamataEsterna(message);
 		});
+		startFuture.complete();
+	}
+
+	@Override
+	public void stop() throws Exception {
+		if (fabrickClient != null) {
+			fabrickClient.close();
+		}
 	}
 
 	public void lanciaChiamataEsterna(Message<Object> message) {
@@ -55,20 +82,54 @@ public class SaldoVerticle extends AbstractVerticle {
 
 		JsonObject json = (JsonObject) message.body();
 
+		String accountId = json.getString("accountId");
 		String indirizzo = json.getString("indirizzo");
 
 		log.info("message.body().\"indirizzo\" = {}", indirizzo);
 
-		WebClient client = WebClient.create(vertx);
+		BalanceCache.Lookup cached = balanceCache.get(accountId);
+		if (cached.state() != BalanceCache.State.MISS) {
+			log.debug("saldo da cache ({}) per accountId: {}", cached.state(), accountId);
+			message.reply(cached.value());
+			if (cached.state() == BalanceCache.State.STALE && balanceCache.startRefresh(accountId)) {
+				// stale-while-revalidate: one background refresh, the caller already has its reply
+				fetchBalance(indirizzo).onComplete(ar -> {
+					if (ar.succeeded()) {
+						balanceCache.put(accountId, ar.result(), cached.epoch());
+					} else {
+						log.warn("Background balance refresh failed for accountId: {}", accountId);
+						balanceCache.refreshFailed(accountId);
+					}
+				});
+			}
+			return;
+		}
+
+		fetchBalance(indirizzo).onComplete(ar -> {
+			if (ar.succeeded()) {
+				balanceCache.put(accountId, ar.result(), cached.epoch());
+				message.reply(ar.result());
+			} else {
+				ReplyException failure = (ReplyException) ar.cause();
+				message.fail(failure.failureCode(), failure.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * Call the Fabrick balance API.
+	 *
+	 * @param indirizzo the Fabrick balance URL
+	 * @return the balance, or a ReplyException carrying the ErrorCode and message for the caller
+	 */
+	private Future<SaldoResponseDto> fetchBalance(String indirizzo) {
+
 		ObjectMapper mapper = objectMapper;
+		Promise<SaldoResponseDto> promise = Promise.promise();
 
 		log.debug("richiamo servizio REST ...");
-		client.requestAbs(HttpMethod.GET, indirizzo)
-				.putHeader("Content-Type", "application/json")
-				.putHeader("Auth-Schema", authSchema)
-				.putHeader("Api-Key", apiKey)
-				.putHeader("Content-Type", "application/json")
-				.sendBuffer(Buffer.buffer(""), ar -> {
+		fabrickClient.get(indirizzo)
+				.onComplete(ar -> {
 					if (ar.succeeded()) {
 
 						HttpResponse<Buffer> response = ar.result();
@@ -101,7 +162,7 @@ public class SaldoVerticle extends AbstractVerticle {
 								errorMessage = "ErrorCode " + ErrorCode.API_ERROR + " - API returned HTTP " + statusCode + ": " + bodyAsString;
 								log.error(errorMessage);
 							}
-							message.fail(ErrorCode.API_ERROR, errorMessage);
+							promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.API_ERROR, errorMessage));
 							return;
 						}
 
@@ -112,30 +173,22 @@ public class SaldoVerticle extends AbstractVerticle {
 							balance = mapper.readValue(bodyAsString, BalanceDto.class);
 						} catch (JsonProcessingException e) {
 							log.error("Error parsing JSON response from Fabrick API", e);
-							message.fail(ErrorCode.API_PARSE_ERROR, "ErrorCode " + ErrorCode.API_PARSE_ERROR + " - Error parsing JSON response");
-							return;
-						}
-
-						// Convert to REST response DTO
-						SaldoResponseDto responseDto = SaldoResponseDto.fromBalanceDto(balance.getPayload());
-						String jsonResponse;
-						try {
-							jsonResponse = mapper.writeValueAsString(responseDto);
-						} catch (JsonProcessingException e) {
-							log.error("Error serializing response to JSON", e);
-							message.fail(ErrorCode.INTERNAL_SERIALIZATION_ERROR, "ErrorCode " + ErrorCode.INTERNAL_SERIALIZATION_ERROR + " - Error serializing response");
+							promise.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, ErrorCode.API_PARSE_ERROR,
+								"ErrorCode " + ErrorCode.API_PARSE_ERROR + " - Error parsing JSON response"));
 							return;
 						}
 
-						message.reply(jsonResponse);
+						// Convert to REST response DTO, sent by reference (serialized once by HttpServerVerticle)
+						promise.complete(SaldoResponseDto.fromBalanceDto(balance.getPayload()));
 
 					} else {
-						String errorMessage = String.format("ErrorCode %d - Unable to call Fabrick API, service may be down: %s",
-							ErrorCode.API_CONNECTION_FAILED, ar.cause().getMessage());
-						log.error(errorMessage, ar.cause());
-						message.fail(ErrorCode.API_CONNECTION_FAILED, errorMessage);
+						// connection failure, or call rejected by the endpoint circuit breaker / bulkhead
+						ReplyException failure = FabrickUnavailableException.toReplyException(ar.cause());
+						log.error(failure.getMessage(), ar.cause());
+						promise.fail(failure);
 					}
 				});
+		return promise.future();
 	}
 
 }
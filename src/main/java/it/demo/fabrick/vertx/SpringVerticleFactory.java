@@ -0,0 +1,49 @@
+package it.demo.fabrick.vertx;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import io.vertx.core.Promise;
+import io.vertx.core.Verticle;
+import io.vertx.core.spi.VerticleFactory;
+
+/**
+ * Vert.x verticle factory backed by the Spring context.
+ * Deploying "spring:&lt;beanName&gt;" asks Spring for a new instance of the
+ * (prototype scoped) verticle bean for every deployed instance, so each
+ * instance gets its own state and dependencies.
+ */
+@Component
+public class SpringVerticleFactory implements VerticleFactory {
+
+    public static final String PREFIX = "spring";
+
+    private final ApplicationContext applicationContext;
+
+    public SpringVerticleFactory(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public String prefix() {
+        return PREFIX;
+    }
+
+    @Override
+    public void createVerticle(String verticleName, ClassLoader classLoader, Promise<Callable<Verticle>> promise) {
+        String beanName = VerticleFactory.removePrefix(verticleName);
+        promise.complete(() -> applicationContext.getBean(beanName, Verticle.class));
+    }
+
+    /**
+     * Build the deployment name of a verticle bean.
+     *
+     * @param beanName the verticle bean name
+     * @return the name to pass to vertx.deployVerticle
+     */
+    public static String verticleName(String beanName) {
+        return PREFIX + ":" + beanName;
+    }
+}
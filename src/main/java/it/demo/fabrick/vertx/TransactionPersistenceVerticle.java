@@ -1,275 +1,417 @@
 package it.demo.fabrick.vertx;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.eventbus.Message;
-import io.vertx.core.json.JsonArray;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.jdbc.JDBCClient;
-import io.vertx.ext.sql.SQLConnection;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import it.demo.fabrick.cache.KnownTransactionIds;
+import it.demo.fabrick.db.DatabasePool;
 import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.dto.bus.TransactionPersistenceRequestDto;
+import it.demo.fabrick.error.ErrorCode;
 import it.demo.fabrick.utils.EventBusConstants;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Verticle for asynchronously persisting transactions to H2 database using Vert.x JDBCClient.
+ * Verticle for asynchronously persisting transactions to H2 database through the shared
+ * Vert.x JDBCPool of {@link DatabasePool}.
  * Listens on the event bus for transaction persistence requests.
  *
  * This verticle ensures that:
  * 1. Duplicate transactions (by transactionId) are not inserted
- * 2. Database operations run asynchronously using Vert.x JDBCClient
- * 3. Single SELECT with IN clause checks all transactionIds at once
- * 4. Single batch INSERT inserts all new transactions at once
+ * 2. Database operations run on Vert.x worker threads, never blocking the event loop
+ * 3. Transactions are upserted with MERGE ... WHEN NOT MATCHED THEN INSERT, in chunks of
+ *    transactions.persistence.mergeChunkSize rows: one round trip per chunk and a fixed
+ *    statement shape, so the statement cache is hit whatever the batch size
+ * 4. Existing transactions are left untouched and counted as skipped
  * 5. The REST API responds immediately while persistence happens in the background
+ * 6. Accounting days of a request carrying syncFrom/syncTo are marked as synced in
+ *    CONTO_TRANSACTION_SYNC once its transactions are stored
+ *
+ * Transactions found in {@link KnownTransactionIds} are already stored and are dropped
+ * before buffering (counted as skipped); flushed ids are added to it.
+ *
+ * Write-behind: requests are buffered and their transactions deduplicated by
+ * transactionId, then flushed together once transactions.persistence.buffer.flushSize
+ * transactions are buffered or flushIntervalMillis after the first buffered request.
+ * A request that would take the buffers of all the instances (including the flushes in
+ * progress) beyond maxSize transactions is rejected with ErrorCode PERSISTENCE_BUFFER_FULL; its days are not
+ * marked as synced, so they are fetched from Fabrick again. The buffer is flushed when
+ * the verticle is stopped.
+ *
+ * Senders using request() get a JsonObject reply with the inserted and skipped counts of
+ * the flush that stored the message, or a failure (ErrorCode INTERNAL_ERROR,
+ * PERSISTENCE_BUFFER_FULL); plain send() stays fire-and-forget.
+ *
+ * Metrics: persistence.transactions (tag {@code result} inserted/skipped/rejected),
+ * persistence.buffer.size.
  */
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Slf4j
 public class TransactionPersistenceVerticle extends AbstractVerticle {
 
-	private JDBCClient jdbcClient;
-	private final String dbUrl;
-	private final String driverClassName;
-	private final String username;
-	private final String password;
+	private static final String SYNC_SQL =
+		"MERGE INTO CONTO_TRANSACTION_SYNC (ACCOUNT_ID, ACCOUNTING_DATE, SYNCED_AT) "
+			+ "KEY (ACCOUNT_ID, ACCOUNTING_DATE) VALUES (?, ?, CURRENT_TIMESTAMP)";
+
+	/** Transactions buffered by all the verticle instances, bounded by maxBuffered */
+	private static final AtomicInteger BUFFERED = new AtomicInteger();
+
+	private static final String[] COLUMNS = {"TRANSACTION_ID", "ACCOUNT_ID", "OPERATION_ID", "ACCOUNTING_DATE",
+		"VALUE_DATE", "TYPE_ENUMERATION", "TYPE_VALUE", "AMOUNT", "CURRENCY", "DESCRIPTION"};
+
+	private final DatabasePool databasePool;
+	private final KnownTransactionIds knownTransactionIds;
+
+	private final int mergeChunkSize;
+	private final String mergeChunkSql;
+	private final String mergeRowSql;
+
+	private final int flushSize;
+	private final long flushIntervalMillis;
+	private final int maxBuffered;
+
+	/** Buffered rows by transactionId, and the requests answered by the next flush */
+	private Map<String, Tuple> buffer = new LinkedHashMap<String, Tuple>();
+	private List<Pending> pending = new ArrayList<Pending>();
+	private Promise<Void> flushing;
+	private long flushTimer = -1;
+	private boolean stopping;
+	private MessageConsumer<Object> consumer;
+
+	private final Counter insertedCounter;
+	private final Counter skippedCounter;
+	private final Counter overflowCounter;
+
+	private record Pending(Message<Object> message, TransactionPersistenceRequestDto request) {
+	}
 
 	public TransactionPersistenceVerticle(
-			@Value("${spring.datasource.url}") String dbUrl,
-			@Value("${spring.datasource.driverClassName}") String driverClassName,
-			@Value("${spring.datasource.username:}") String username,
-			@Value("${spring.datasource.password:}") String password) {
-
-		this.dbUrl = dbUrl;
-		this.driverClassName = driverClassName;
-		this.username = username;
-		this.password = password;
+			MeterRegistry meterRegistry,
+			DatabasePool databasePool,
+			KnownTransactionIds knownTransactionIds,
+			@Value("${transactions.persistence.mergeChunkSize:100}") int mergeChunkSize,
+			@Value("${transactions.persistence.buffer.flushSize:1000}") int flushSize,
+			@Value("${transactions.persistence.buffer.flushIntervalMillis:200}") long flushIntervalMillis,
+			@Value("${transactions.persistence.buffer.maxSize:20000}") int maxBuffered) {
+
+		this.databasePool = databasePool;
+		this.knownTransactionIds = knownTransactionIds;
+		this.mergeChunkSize = Math.max(1, mergeChunkSize);
+		// two statement shapes only, whatever the batch size
+		this.mergeChunkSql = mergeSql(this.mergeChunkSize);
+		this.mergeRowSql = mergeSql(1);
+		this.flushSize = Math.max(1, flushSize);
+		this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+		this.maxBuffered = maxBuffered;
+		this.insertedCounter = Counter.builder("persistence.transactions").tag("result", "inserted")
+			.register(meterRegistry);
+		this.skippedCounter = Counter.builder("persistence.transactions").tag("result", "skipped")
+			.register(meterRegistry);
+		this.overflowCounter = Counter.builder("persistence.transactions").tag("result", "rejected")
+			.register(meterRegistry);
+		Gauge.builder("persistence.buffer.size", BUFFERED, AtomicInteger::get)
+			.description("Transactions buffered for persistence, waiting for or in a flush")
+			.register(meterRegistry);
 	}
 
 	@Override
 	public void start(Promise<Void> startFuture) throws Exception {
 		log.info("start - TransactionPersistenceVerticle started");
 
-		// Create JDBCClient here where vertx instance is available
-		JsonObject config = new JsonObject()
-			.put("url", dbUrl)
-			.put("driver_class", driverClassName)
-			.put("user", username)
-			.put("password", password);
-
-		this.jdbcClient = JDBCClient.createShared(vertx, config);
+		// loaded in the background: until then unknown transactions simply go to the database
+		knownTransactionIds.load(vertx);
 
 		String bus = EventBusConstants.TRANSACTION_PERSISTENCE_BUS;
 		log.debug("Subscribing to event bus address: '{}' ..", bus);
-		vertx.eventBus().consumer(bus, this::handlePersistenceRequest);
+		consumer = vertx.eventBus().consumer(bus, this::handlePersistenceRequest);
 		log.info("TransactionPersistenceVerticle ready to persist transactions");
 		startFuture.complete();
 	}
 
+	@Override
+	public void stop(Promise<Void> stopFuture) throws Exception {
+		// no new requests, then flush what is buffered before the pool goes away
+		stopping = true;
+		consumer.unregister()
+			.transform(ar -> drain())
+			.onComplete(ar -> {
+				log.info("stop - TransactionPersistenceVerticle buffer flushed");
+				stopFuture.complete();
+			});
+	}
+
 	/**
 	 * Handle transaction persistence requests from the event bus.
 	 *
-	 * Expected message format:
-	 * {
-	 *   "transactions": [ListaTransactionDto objects as JSON],
-	 *   "requestId": "uuid"
-	 * }
+	 * Expected message body: TransactionPersistenceRequestDto, received by reference
+	 * through LocalDtoCodec (no JSON conversion of the transactions).
+	 * The transactions are buffered and the message is answered once they are flushed.
 	 *
 	 * @param message the event bus message containing transaction data
 	 */
 	public void handlePersistenceRequest(Message<Object> message) {
 		log.info("handlePersistenceRequest - Received persistence request");
 
-		JsonObject json = (JsonObject) message.body();
-		String requestId = json.getString("requestId");
+		TransactionPersistenceRequestDto request = (TransactionPersistenceRequestDto) message.body();
+		String requestId = request.getRequestId();
 
-		// Extract the transactions array from the message
-		Object transactionsObj = json.getValue("transactions");
-		if (!(transactionsObj instanceof JsonArray)) {
+		List<ListaTransactionDto> transactions = request.getTransactions();
+		if (transactions == null) {
 			log.warn("No transactions found in persistence request for requestId: {}", requestId);
+			message.fail(ErrorCode.VALIDATION_MISSING_PARAMETER,
+				"ErrorCode " + ErrorCode.VALIDATION_MISSING_PARAMETER + " - No transactions to persist");
+			return;
+		}
+		if (transactions.isEmpty() && request.getSyncFrom() == null) {
+			log.debug("No transactions to persist for requestId: {}", requestId);
+			message.reply(counts(0, 0));
 			return;
 		}
 
-		JsonArray transactionsArray = (JsonArray) transactionsObj;
-
-		log.info("Processing {} transactions for persistence, requestId: {}", transactionsArray.size(), requestId);
+		// reserve the room in the buffer shared by the instances, then keep only what was buffered
+		int buffered = BUFFERED.addAndGet(transactions.size());
+		if (buffered > maxBuffered) {
+			BUFFERED.addAndGet(-transactions.size());
+			overflowCounter.increment(transactions.size());
+			log.warn("Persistence buffer full ({} transactions), rejecting {} transactions for requestId: {}",
+				buffered - transactions.size(), transactions.size(), requestId);
+			message.fail(ErrorCode.PERSISTENCE_BUFFER_FULL, "ErrorCode " + ErrorCode.PERSISTENCE_BUFFER_FULL
+				+ " - Persistence buffer full, transactions not persisted");
+			return;
+		}
 
-		// Convert JSON to ListaTransactionDto list
-		List<ListaTransactionDto> transactions = transactionsArray.stream()
-			.map(obj -> (JsonObject) obj)
-			.map(this::mapJsonToListaTransactionDto)
-			.collect(Collectors.toList());
+		log.info("Buffering {} transactions for persistence, requestId: {}", transactions.size(), requestId);
 
-		// Perform async persistence using Vert.x JDBCClient
-		persistTransactions(transactions, requestId);
+		// Already stored transactions are dropped; duplicates across the buffered requests
+		// are merged once: keep the first one
+		int before = buffer.size();
+		int known = 0;
+		for (ListaTransactionDto dto : transactions) {
+			if (knownTransactionIds.contains(dto.getTransactionId())) {
+				known++;
+			} else {
+				buffer.putIfAbsent(dto.getTransactionId(), rowParams(request.getAccountId(), dto));
+			}
+		}
+		BUFFERED.addAndGet(buffer.size() - before - transactions.size());
+		if (known == transactions.size() && request.getSyncFrom() == null) {
+			log.info("All {} transactions already stored, requestId: {}", known, requestId);
+			message.reply(counts(0, known));
+			return;
+		}
+		pending.add(new Pending(message, request));
+		scheduleFlush();
 	}
 
 	/**
-	 * Persist transactions to the database using optimized SQL.
-	 * 1. Single SELECT with IN clause to check which transactionIds already exist
-	 * 2. Single batch INSERT to insert all new transactions at once
-	 *
-	 * @param transactions the list of transactions to persist
-	 * @param requestId the request ID for logging
+	 * Flush at once when the buffer reached flushSize (or the verticle is stopping),
+	 * otherwise at most flushIntervalMillis after the first buffered request.
 	 */
-	private void persistTransactions(List<ListaTransactionDto> transactions, String requestId) {
-		if (transactions.isEmpty()) {
-			log.debug("No transactions to persist for requestId: {}", requestId);
+	private void scheduleFlush() {
+		if (pending.isEmpty()) {
 			return;
 		}
-
-		// Step 1: Check existing transactionIds with a single SELECT using IN clause
-		List<String> transactionIds = transactions.stream()
-			.map(ListaTransactionDto::getTransactionId)
-			.collect(Collectors.toList());
-
-		String inClause = transactionIds.stream()
-			.map(id -> "?")
-			.collect(Collectors.joining(", "));
-
-		String selectSql = "SELECT TRANSACTION_ID FROM CONTO_TRANSACTION WHERE TRANSACTION_ID IN (" + inClause + ")";
-
-		JsonArray params = new JsonArray();
-		transactionIds.forEach(params::add);
-
-		jdbcClient.getConnection(ar -> {
-			if (ar.failed()) {
-				log.error("Failed to get database connection for requestId: {}", requestId, ar.cause());
-				return;
-			}
-
-			SQLConnection conn = ar.result();
-
-			// Execute SELECT to find existing transactionIds
-			conn.queryWithParams(selectSql, params, queryRes -> {
-				if (queryRes.failed()) {
-					log.error("Failed to query existing transactions for requestId: {}", requestId, queryRes.cause());
-					conn.close();
-					return;
-				}
-
-				// Build set of existing transactionIds
-				Set<String> existingIds = new HashSet<String>();
-				queryRes.result().getRows().forEach(row ->
-					existingIds.add(row.getString("TRANSACTION_ID"))
-				);
-
-				log.debug("Found {} existing transactions for requestId: {}", existingIds.size(), requestId);
-
-				// Step 2: Filter out existing transactions
-				List<ListaTransactionDto> newTransactions = transactions.stream()
-					.filter(t -> !existingIds.contains(t.getTransactionId()))
-					.collect(Collectors.toList());
-
-				if (newTransactions.isEmpty()) {
-					log.info("All {} transactions already exist, skipping insert for requestId: {}",
-						transactions.size(), requestId);
-					conn.close();
-					return;
-				}
-
-				log.info("Inserting {} new transactions (skipped {} existing) for requestId: {}",
-					newTransactions.size(), existingIds.size(), requestId);
-
-				// Step 3: Batch insert all new transactions
-				batchInsertTransactions(conn, newTransactions, requestId);
+		if (buffer.size() >= flushSize || stopping) {
+			flush();
+		} else if (flushTimer < 0) {
+			flushTimer = vertx.setTimer(flushIntervalMillis, id -> {
+				flushTimer = -1;
+				flush();
 			});
-		});
+		}
 	}
 
 	/**
-	 * Batch insert transactions using a single SQL statement.
+	 * Write the buffered transactions and mark the synced days of the buffered requests on
+	 * one connection, then answer the requests. One flush runs at a time: requests arriving
+	 * meanwhile are buffered for the next one.
 	 *
-	 * @param conn the SQL connection
-	 * @param transactions the list of transactions to insert
-	 * @param requestId the request ID for logging
+	 * @return a future completed when the flush is over, failed or not
 	 */
-	private void batchInsertTransactions(SQLConnection conn, List<ListaTransactionDto> transactions, String requestId) {
-		// Build batch INSERT statement
-		String insertSql = """
-			INSERT INTO CONTO_TRANSACTION (
-				TRANSACTION_ID, OPERATION_ID, ACCOUNTING_DATE, VALUE_DATE,
-				TYPE_ENUMERATION, TYPE_VALUE, AMOUNT, CURRENCY, DESCRIPTION
-			) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-			""";
-
-		List<JsonArray> batchParams = new ArrayList<JsonArray>();
-
-		for (ListaTransactionDto dto : transactions) {
-			JsonArray params = new JsonArray()
-				.add(dto.getTransactionId())
-				.add(dto.getOperationId())
-				.add(dto.getAccountingDate())
-				.add(dto.getValueDate());
-
-			// Handle nested type object
-			if (dto.getType() != null) {
-				params.add(dto.getType().getEnumeration())
-					.add(dto.getType().getValue());
-			} else {
-				params.addNull().addNull();
-			}
+	private Future<Void> flush() {
+		if (flushing != null) {
+			return flushing.future();
+		}
+		if (pending.isEmpty()) {
+			return Future.succeededFuture();
+		}
+		if (flushTimer >= 0) {
+			vertx.cancelTimer(flushTimer);
+			flushTimer = -1;
+		}
 
-			params.add(dto.getAmount())
-				.add(dto.getCurrency())
-				.add(dto.getDescription());
+		List<String> ids = new ArrayList<String>(buffer.keySet());
+		List<Tuple> rows = new ArrayList<Tuple>(buffer.values());
+		List<Pending> requests = pending;
+		buffer = new LinkedHashMap<String, Tuple>();
+		pending = new ArrayList<Pending>();
+		int received = requests.stream().mapToInt(p -> p.request().getTransactions().size()).sum();
+
+		Promise<Void> promise = Promise.promise();
+		flushing = promise;
+		databasePool.withConnection(vertx, conn -> mergeChunks(conn, rows, 0, 0)
+				.compose(inserted -> markSynced(conn, requests).map(inserted)))
+			.onComplete(ar -> {
+				BUFFERED.addAndGet(-rows.size());
+				if (ar.succeeded()) {
+					knownTransactionIds.addAll(ids);
+					int inserted = ar.result();
+					int skipped = received - inserted;
+					insertedCounter.increment(inserted);
+					skippedCounter.increment(skipped);
+					log.info("Flushed {} transactions from {} requests - Inserted: {}, skipped: {} duplicate or existing",
+						received, requests.size(), inserted, skipped);
+					JsonObject counts = counts(inserted, skipped);
+					requests.forEach(p -> p.message().reply(counts));
+				} else {
+					log.error("Transaction flush failed for {} requests", requests.size(), ar.cause());
+					String errorMessage = "ErrorCode " + ErrorCode.INTERNAL_ERROR
+						+ " - Transaction persistence failed: " + ar.cause().getMessage();
+					requests.forEach(p -> p.message().fail(ErrorCode.INTERNAL_ERROR, errorMessage));
+				}
+				flushing = null;
+				promise.complete();
+				scheduleFlush();
+			});
+		return promise.future();
+	}
 
-			batchParams.add(params);
+	/**
+	 * Flush until nothing is buffered or being flushed.
+	 */
+	private Future<Void> drain() {
+		if (flushing == null && pending.isEmpty()) {
+			return Future.succeededFuture();
 		}
+		return flush().transform(ar -> drain());
+	}
 
-		// Execute batch insert
-		conn.batchWithParams(insertSql, batchParams, batchRes -> {
-			conn.close();
-			if (batchRes.succeeded()) {
-				List<Integer> results = batchRes.result();
-				int totalAffected = results.stream().mapToInt(Integer::intValue).sum();
-				log.info("Batch insert completed for requestId: {} - Inserted: {} transactions",
-					requestId, totalAffected);
-			} else {
-				log.error("Batch insert failed for requestId: {}", requestId, batchRes.cause());
+	/**
+	 * Mark the accounting days from syncFrom to syncTo of each request as synced for its account.
+	 *
+	 * @param conn the connection the transactions were written with
+	 * @param requests the flushed requests
+	 * @return a future completed when the days are marked, or at once if no request has a sync range
+	 */
+	private Future<Void> markSynced(SqlConnection conn, List<Pending> requests) {
+		List<Tuple> batchParams = new ArrayList<Tuple>();
+		for (Pending pendingRequest : requests) {
+			TransactionPersistenceRequestDto request = pendingRequest.request();
+			if (request.getSyncFrom() == null || request.getSyncTo() == null) {
+				continue;
+			}
+			LocalDate to = LocalDate.parse(request.getSyncTo());
+			for (LocalDate day = LocalDate.parse(request.getSyncFrom()); !day.isAfter(to); day = day.plusDays(1)) {
+				batchParams.add(Tuple.of(request.getAccountId(), day.toString()));
 			}
-		});
+		}
+		if (batchParams.isEmpty()) {
+			return Future.succeededFuture();
+		}
+		return conn.preparedQuery(SYNC_SQL).executeBatch(batchParams)
+			.onSuccess(rows -> log.info("{} accounting days synced", batchParams.size()))
+			.mapEmpty();
 	}
 
 	/**
-	 * Map a JsonObject to ListaTransactionDto.
+	 * Merge the rows from offset on, one full chunk per statement; the last partial
+	 * chunk goes through the single-row statement in one batch. Rows whose TRANSACTION_ID
+	 * already exists are left untouched.
 	 *
-	 * @param json the JSON object representing a transaction
-	 * @return ListaTransactionDto
+	 * @return a future with the number of rows inserted
 	 */
-	private ListaTransactionDto mapJsonToListaTransactionDto(JsonObject json) {
-		ListaTransactionDto dto = new ListaTransactionDto();
-
-		dto.setTransactionId(json.getString("transactionId"));
-		dto.setOperationId(json.getString("operationId"));
-		dto.setAccountingDate(json.getString("accountingDate"));
-		dto.setValueDate(json.getString("valueDate"));
-		// Convert JSON number to BigDecimal for monetary precision
-		Object amountValue = json.getValue("amount");
-		if (amountValue instanceof Number) {
-			dto.setAmount(java.math.BigDecimal.valueOf(((Number) amountValue).doubleValue()));
-		} else {
-			dto.setAmount(null);
+	private Future<Integer> mergeChunks(SqlConnection conn, List<Tuple> rows, int offset, int inserted) {
+		int remaining = rows.size() - offset;
+		if (remaining == 0) {
+			return Future.succeededFuture(inserted);
+		}
+		if (remaining < mergeChunkSize) {
+			return conn.preparedQuery(mergeRowSql).executeBatch(rows.subList(offset, rows.size()))
+				.map(result -> {
+					int count = inserted;
+					for (RowSet<Row> rowSet = result; rowSet != null; rowSet = rowSet.next()) {
+						count += rowSet.rowCount();
+					}
+					return count;
+				});
 		}
-		dto.setCurrency(json.getString("currency"));
-		dto.setDescription(json.getString("description"));
+
+		List<Object> params = new ArrayList<Object>(mergeChunkSize * COLUMNS.length);
+		for (Tuple row : rows.subList(offset, offset + mergeChunkSize)) {
+			for (int i = 0; i < row.size(); i++) {
+				params.add(row.getValue(i));
+			}
+		}
+		return conn.preparedQuery(mergeChunkSql).execute(Tuple.wrap(params))
+			.compose(result -> {
+				log.debug("Merged chunk {}..{} of {} transactions", offset, offset + mergeChunkSize, rows.size());
+				return mergeChunks(conn, rows, offset + mergeChunkSize, inserted + result.rowCount());
+			});
+	}
+
+	private static Tuple rowParams(String accountId, ListaTransactionDto dto) {
+		Tuple params = Tuple.tuple()
+			.addValue(dto.getTransactionId())
+			.addValue(accountId)
+			.addValue(dto.getOperationId())
+			.addValue(dto.getAccountingDate())
+			.addValue(dto.getValueDate());
 
 		// Handle nested type object
-		JsonObject typeJson = json.getJsonObject("type");
-		if (typeJson != null) {
-			ListaTransactionDto.Type type = new ListaTransactionDto().new Type();
-			type.setEnumeration(typeJson.getString("enumeration"));
-			type.setValue(typeJson.getString("value"));
-			dto.setType(type);
+		if (dto.getType() != null) {
+			params.addValue(dto.getType().getEnumeration())
+				.addValue(dto.getType().getValue());
+		} else {
+			params.addValue(null).addValue(null);
 		}
 
-		return dto;
+		return params.addValue(dto.getAmount())
+			.addValue(dto.getCurrency())
+			.addValue(dto.getDescription());
+	}
+
+	private static JsonObject counts(int inserted, int skipped) {
+		return new JsonObject().put("inserted", inserted).put("skipped", skipped);
+	}
+
+	/**
+	 * MERGE of the given number of rows: rows whose TRANSACTION_ID already exists are left
+	 * as they are, so the update count is the number of rows inserted.
+	 *
+	 * @param rows the number of rows (VALUES tuples) of the statement
+	 * @return the SQL statement, with COLUMNS.length placeholders per row
+	 */
+	static String mergeSql(int rows) {
+		String row = "(" + String.join(", ", Collections.nCopies(COLUMNS.length, "?")) + ")";
+		String columns = String.join(", ", COLUMNS);
+		return "MERGE INTO CONTO_TRANSACTION T USING (VALUES "
+			+ String.join(", ", Collections.nCopies(rows, row))
+			+ ") AS S(" + columns + ") ON T.TRANSACTION_ID = S.TRANSACTION_ID "
+			+ "WHEN NOT MATCHED THEN INSERT (" + columns + ") VALUES (S."
+			+ String.join(", S.", COLUMNS) + ")";
 	}
 }
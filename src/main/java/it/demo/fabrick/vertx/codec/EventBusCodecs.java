@@ -0,0 +1,44 @@
+package it.demo.fabrick.vertx.codec;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.eventbus.EventBus;
+import it.demo.fabrick.dto.bus.BonificoBusRequestDto;
+import it.demo.fabrick.dto.bus.TransactionPersistenceRequestDto;
+import it.demo.fabrick.dto.rest.BonificoRestResponseDto;
+import it.demo.fabrick.dto.rest.SaldoResponseDto;
+import it.demo.fabrick.dto.rest.TransazioniResponseDto;
+
+/**
+ * Registers the default event bus codecs for the DTOs exchanged between verticles.
+ */
+public final class EventBusCodecs {
+
+    /** DTOs sent or replied on the event bus */
+    private static final List<Class<?>> BUS_DTOS = List.of(
+        BonificoBusRequestDto.class,
+        TransactionPersistenceRequestDto.class,
+        SaldoResponseDto.class,
+        TransazioniResponseDto.class,
+        BonificoRestResponseDto.class);
+
+    private EventBusCodecs() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Register a {@link LocalDtoCodec} as default codec for every bus DTO.
+     *
+     * @param eventBus the event bus
+     * @param objectMapper the mapper used for clustered (wire) delivery
+     */
+    public static void register(EventBus eventBus, ObjectMapper objectMapper) {
+        BUS_DTOS.forEach(type -> registerDefaultCodec(eventBus, type, objectMapper));
+    }
+
+    private static <T> void registerDefaultCodec(EventBus eventBus, Class<T> type, ObjectMapper objectMapper) {
+        eventBus.registerDefaultCodec(type, new LocalDtoCodec<T>(type, objectMapper));
+    }
+}
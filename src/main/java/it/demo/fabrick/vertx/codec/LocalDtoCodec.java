@@ -0,0 +1,67 @@
+package it.demo.fabrick.vertx.codec;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.EncodeException;
+
+/**
+ * Event bus codec for DTOs.
+ *
+ * Local delivery passes the DTO by reference (no copy, no serialization): the
+ * sender must not modify the object after sending it. Jackson encoding is used
+ * only when the message crosses the wire in clustered mode.
+ *
+ * @param <T> the DTO type
+ */
+public class LocalDtoCodec<T> implements MessageCodec<T, T> {
+
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+
+    public LocalDtoCodec(Class<T> type, ObjectMapper objectMapper) {
+        this.type = type;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void encodeToWire(Buffer buffer, T dto) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(dto);
+            buffer.appendInt(bytes.length);
+            buffer.appendBytes(bytes);
+        } catch (IOException e) {
+            throw new EncodeException("Failed to encode " + type.getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public T decodeFromWire(int pos, Buffer buffer) {
+        int length = buffer.getInt(pos);
+        int start = pos + 4;
+        try {
+            return objectMapper.readValue(buffer.getBytes(start, start + length), type);
+        } catch (IOException e) {
+            throw new DecodeException("Failed to decode " + type.getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public T transform(T dto) {
+        return dto;
+    }
+
+    @Override
+    public String name() {
+        return "local-" + type.getName();
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
@@ -0,0 +1,34 @@
+-- IF NOT EXISTS: a database created by the former schema.sql is adopted as version 1
+
+CREATE TABLE IF NOT EXISTS CONTO_TRANSACTION (
+      TRANSACTION_ID VARCHAR(100) PRIMARY KEY,
+      ACCOUNT_ID VARCHAR(50),
+      OPERATION_ID VARCHAR(100),
+      ACCOUNTING_DATE DATE,
+      VALUE_DATE DATE,
+      TYPE_ENUMERATION VARCHAR(50),
+      TYPE_VALUE VARCHAR(50),
+      AMOUNT DOUBLE NOT NULL,
+      CURRENCY VARCHAR(3),
+      DESCRIPTION VARCHAR(500)
+  );
+
+-- the first schema.sql had no ACCOUNT_ID
+ALTER TABLE CONTO_TRANSACTION ADD COLUMN IF NOT EXISTS ACCOUNT_ID VARCHAR(50) AFTER TRANSACTION_ID;
+
+CREATE INDEX IF NOT EXISTS IDX_CONTO_TRANSACTION_ACCOUNTING_DATE ON CONTO_TRANSACTION (ACCOUNT_ID, ACCOUNTING_DATE);
+CREATE INDEX IF NOT EXISTS IDX_CONTO_TRANSACTION_VALUE_DATE ON CONTO_TRANSACTION (ACCOUNT_ID, VALUE_DATE);
+
+CREATE TABLE IF NOT EXISTS CONTO_TRANSACTION_SYNC (
+      ACCOUNT_ID VARCHAR(50) NOT NULL,
+      ACCOUNTING_DATE DATE NOT NULL,
+      SYNCED_AT TIMESTAMP NOT NULL,
+      PRIMARY KEY (ACCOUNT_ID, ACCOUNTING_DATE)
+  );
+
+CREATE TABLE IF NOT EXISTS IDEMPOTENCY_KEY (
+      IDEMPOTENCY_KEY VARCHAR(255) PRIMARY KEY,
+      REQUEST_FINGERPRINT VARCHAR(64) NOT NULL,
+      RESPONSE_BODY VARCHAR(4000) NOT NULL,
+      CREATED_AT TIMESTAMP NOT NULL
+  );
@@ -0,0 +1,108 @@
+package it.demo.fabrick.unit.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.admission.AdmissionController;
+import it.demo.fabrick.admission.ConcurrencyLimiter;
+import it.demo.fabrick.config.AdmissionProperties;
+
+/**
+ * Unit tests for AdmissionController permits, behind a local HTTP server.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("AdmissionController Tests")
+class AdmissionControllerTest {
+
+	@Test
+	@DisplayName("detach - should keep the permit after the response until released, rejecting requests over the limit")
+	void testDetach_keepsPermitUntilReleased(Vertx vertx, VertxTestContext testContext) {
+		AdmissionProperties properties = new AdmissionProperties();
+		properties.setMoneyTransfer(new AdmissionProperties.Limit(1, 0));
+		AdmissionController admission = new AdmissionController(properties, new SimpleMeterRegistry());
+		ConcurrencyLimiter limiter = admission.limiter(AdmissionController.MONEY_TRANSFER);
+		AtomicReference<Runnable> release = new AtomicReference<Runnable>();
+
+		Router router = Router.router(vertx);
+		router.post("/transfer")
+			.handler(admission.handler(AdmissionController.MONEY_TRANSFER))
+			.handler(ctx -> {
+				release.set(AdmissionController.detach(ctx));
+				ctx.response().setStatusCode(202).end();
+			});
+		WebClient client = WebClient.create(vertx);
+
+		vertx.createHttpServer().requestHandler(router).listen(0)
+			.compose(server -> client.post(server.actualPort(), "localhost", "/transfer").send()
+				.compose(accepted -> client.post(server.actualPort(), "localhost", "/transfer").send()
+					.map(rejected -> {
+						testContext.verify(() -> {
+							assertEquals(202, accepted.statusCode());
+							assertEquals(503, rejected.statusCode());
+							assertEquals(1, limiter.getInFlight());
+						});
+						release.get().run();
+						release.get().run();
+						return limiter.getInFlight();
+					})))
+			.onComplete(testContext.succeeding(inFlight -> testContext.verify(() -> {
+				assertEquals(0, inFlight, "released once");
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("handler - should release the permit of a request whose connection closed while queued")
+	void testHandler_clientGoneWhileQueued(Vertx vertx, VertxTestContext testContext) {
+		AdmissionProperties properties = new AdmissionProperties();
+		properties.setBalance(new AdmissionProperties.Limit(1, 1));
+		properties.setQueueTimeout(5000);
+		AdmissionController admission = new AdmissionController(properties, new SimpleMeterRegistry());
+		ConcurrencyLimiter limiter = admission.limiter(AdmissionController.BALANCE);
+		List<RoutingContext> admitted = new ArrayList<RoutingContext>();
+
+		Router router = Router.router(vertx);
+		router.get("/balance")
+			.handler(admission.handler(AdmissionController.BALANCE))
+			.handler(admitted::add);
+		HttpClient holder = vertx.createHttpClient();
+		HttpClient gone = vertx.createHttpClient();
+
+		vertx.createHttpServer().requestHandler(router).listen(0).onComplete(testContext.succeeding(server -> {
+			int port = server.actualPort();
+			holder.request(HttpMethod.GET, port, "localhost", "/balance").compose(HttpClientRequest::end);
+			vertx.setTimer(100, t1 -> gone.request(HttpMethod.GET, port, "localhost", "/balance")
+				.compose(HttpClientRequest::end));
+			// queued behind the first request, then the client goes away
+			vertx.setTimer(200, t2 -> testContext.verify(() -> {
+				assertEquals(1, limiter.getQueued());
+				gone.close();
+			}));
+			vertx.setTimer(300, t3 -> admitted.get(0).response().end());
+			vertx.setTimer(400, t4 -> testContext.verify(() -> {
+				assertEquals(1, admitted.size());
+				assertEquals(0, limiter.getInFlight());
+				assertEquals(0, limiter.getQueued());
+				holder.close();
+				testContext.completeNow();
+			}));
+		}));
+	}
+}
@@ -0,0 +1,79 @@
+package it.demo.fabrick.unit.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.admission.ConcurrencyLimiter;
+
+/**
+ * Unit tests for ConcurrencyLimiter admission and queueing.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("ConcurrencyLimiter Tests")
+class ConcurrencyLimiterTest {
+
+	@Test
+	@DisplayName("should queue over the limit, shed when the queue is full and hand over permits in order")
+	void testQueueAndShed(Vertx vertx, VertxTestContext testContext) {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("balance", 1, 1);
+		Context context = vertx.getOrCreateContext();
+
+		Future<Void> first = limiter.acquire(context, 10000);
+		Future<Void> second = limiter.acquire(context, 10000);
+		Future<Void> third = limiter.acquire(context, 10000);
+
+		assertTrue(first.succeeded());
+		assertFalse(second.isComplete(), "second request waits in the queue");
+		assertEquals(ConcurrencyLimiter.QUEUE_FULL, ((ConcurrencyLimiter.RejectedException) third.cause()).getReason());
+		assertEquals(1, limiter.getQueued());
+
+		limiter.release();
+		second.onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+			assertEquals(1, limiter.getInFlight());
+			assertEquals(0, limiter.getQueued());
+			testContext.completeNow();
+		})));
+	}
+
+	@Test
+	@DisplayName("should shed requests queued longer than the queue timeout")
+	void testQueueTimeout(Vertx vertx, VertxTestContext testContext) {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("moneyTransfer", 1, 5);
+		Context context = vertx.getOrCreateContext();
+
+		limiter.acquire(context, 10);
+		limiter.acquire(context, 10).onComplete(testContext.failing(cause -> testContext.verify(() -> {
+			assertEquals(ConcurrencyLimiter.QUEUE_TIMEOUT, ((ConcurrencyLimiter.RejectedException) cause).getReason());
+			assertEquals(0, limiter.getQueued());
+			assertEquals(1, limiter.getInFlight());
+			testContext.completeNow();
+		})));
+	}
+
+	@Test
+	@DisplayName("should admit queued requests when the limit is raised at runtime")
+	void testRaiseLimit(Vertx vertx, VertxTestContext testContext) {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("transactions", 1, 5);
+		Context context = vertx.getOrCreateContext();
+
+		limiter.acquire(context, 10000);
+		Future<Void> queued = limiter.acquire(context, 10000);
+		limiter.setLimits(2, 5);
+
+		queued.onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+			assertEquals(2, limiter.getInFlight());
+			assertEquals(2, limiter.getMaxConcurrent());
+			testContext.completeNow();
+		})));
+	}
+}
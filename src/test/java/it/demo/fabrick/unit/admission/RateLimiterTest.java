@@ -0,0 +1,67 @@
+package it.demo.fabrick.unit.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.demo.fabrick.admission.AdmissionController;
+import it.demo.fabrick.admission.RateLimiter;
+import it.demo.fabrick.config.RateLimitProperties;
+
+/**
+ * Unit tests for the RateLimiter token buckets.
+ */
+@DisplayName("RateLimiter Tests")
+class RateLimiterTest {
+
+	private final AtomicLong now = new AtomicLong();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private RateLimiter rateLimiter() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setTransactions(new RateLimitProperties.Limit(2, 3));
+		properties.setIdleTimeout(10000);
+		return new RateLimiter(properties, registry, now::get);
+	}
+
+	@Test
+	@DisplayName("should allow the burst, then throttle until a token is refilled")
+	void testBurstThenThrottle() {
+		RateLimiter limiter = rateLimiter();
+
+		assertEquals(2, limiter.tryAcquire(AdmissionController.TRANSACTIONS, "client-a").remaining());
+		assertEquals(1, limiter.tryAcquire(AdmissionController.TRANSACTIONS, "client-a").remaining());
+		assertEquals(0, limiter.tryAcquire(AdmissionController.TRANSACTIONS, "client-a").remaining());
+
+		RateLimiter.Decision throttled = limiter.tryAcquire(AdmissionController.TRANSACTIONS, "client-a");
+		assertFalse(throttled.allowed());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(500), throttled.retryAfterNanos());
+		assertTrue(limiter.tryAcquire(AdmissionController.TRANSACTIONS, "client-b").allowed(),
+			"other clients have their own bucket");
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+		assertTrue(limiter.tryAcquire(AdmissionController.TRANSACTIONS, "client-a").allowed());
+		assertEquals(1.0, registry.get("http.ratelimit.throttled").tag("route", "transactions").counter().count());
+	}
+
+	@Test
+	@DisplayName("should evict the buckets of idle clients")
+	void testIdleEviction() {
+		RateLimiter limiter = rateLimiter();
+		limiter.tryAcquire(AdmissionController.TRANSACTIONS, "client-a");
+		limiter.tryAcquire(AdmissionController.BALANCE, "client-b");
+		assertEquals(2.0, registry.get("http.ratelimit.clients").gauge().value());
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+		limiter.tryAcquire(AdmissionController.BALANCE, "client-c");
+
+		assertEquals(1.0, registry.get("http.ratelimit.clients").gauge().value());
+	}
+}
@@ -0,0 +1,96 @@
+package it.demo.fabrick.unit.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.demo.fabrick.cache.BalanceCache;
+import it.demo.fabrick.dto.rest.SaldoResponseDto;
+
+/**
+ * Unit tests for BalanceCache.
+ */
+@DisplayName("BalanceCache Tests")
+class BalanceCacheTest {
+
+	private static final String ACCOUNT_ID = "14537780";
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+	private SimpleMeterRegistry registry;
+	private BalanceCache cache;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		cache = new BalanceCache(true, 1000, 5000, registry, now::get);
+	}
+
+	@Test
+	@DisplayName("get - should serve fresh, then stale with a single refresh, then miss")
+	void testGet_freshStaleMiss() {
+		SaldoResponseDto saldo = saldo("100.00");
+		cache.put(ACCOUNT_ID, saldo, cache.get(ACCOUNT_ID).epoch());
+
+		BalanceCache.Lookup fresh = cache.get(ACCOUNT_ID);
+		assertEquals(BalanceCache.State.FRESH, fresh.state());
+		assertSame(saldo, fresh.value());
+
+		now.addAndGet(2000);
+		BalanceCache.Lookup stale = cache.get(ACCOUNT_ID);
+		assertEquals(BalanceCache.State.STALE, stale.state());
+		assertSame(saldo, stale.value());
+		assertTrue(cache.startRefresh(ACCOUNT_ID));
+		assertFalse(cache.startRefresh(ACCOUNT_ID), "only one background refresh at a time");
+
+		now.addAndGet(10000);
+		assertEquals(BalanceCache.State.MISS, cache.get(ACCOUNT_ID).state());
+
+		assertEquals(1.0, registry.get("cache.balance.requests").tag("result", "hit").counter().count());
+		assertEquals(1.0, registry.get("cache.balance.requests").tag("result", "stale").counter().count());
+		assertEquals(2.0, registry.get("cache.balance.requests").tag("result", "miss").counter().count());
+	}
+
+	@Test
+	@DisplayName("invalidate - should drop the entry and discard fetches started before it")
+	void testInvalidate_discardsInFlightFetch() {
+		cache.put(ACCOUNT_ID, saldo("100.00"), cache.get(ACCOUNT_ID).epoch());
+
+		long epochBeforeTransfer = cache.get(ACCOUNT_ID).epoch();
+		cache.invalidate(ACCOUNT_ID);
+		assertEquals(BalanceCache.State.MISS, cache.get(ACCOUNT_ID).state());
+
+		cache.put(ACCOUNT_ID, saldo("100.00"), epochBeforeTransfer);
+		assertEquals(BalanceCache.State.MISS, cache.get(ACCOUNT_ID).state());
+
+		SaldoResponseDto updated = saldo("90.00");
+		cache.put(ACCOUNT_ID, updated, cache.get(ACCOUNT_ID).epoch());
+		assertSame(updated, cache.get(ACCOUNT_ID).value());
+	}
+
+	@Test
+	@DisplayName("invalidate - should keep the fetches of the other accounts")
+	void testInvalidate_otherAccountFetchKept() {
+		long epoch = cache.get(ACCOUNT_ID).epoch();
+		cache.invalidate("99999999");
+
+		SaldoResponseDto saldo = saldo("100.00");
+		cache.put(ACCOUNT_ID, saldo, epoch);
+		assertEquals(BalanceCache.State.FRESH, cache.get(ACCOUNT_ID).state());
+		assertSame(saldo, cache.get(ACCOUNT_ID).value());
+	}
+
+	private static SaldoResponseDto saldo(String balance) {
+		SaldoResponseDto saldo = new SaldoResponseDto();
+		saldo.setBalance(new BigDecimal(balance));
+		return saldo;
+	}
+}
@@ -0,0 +1,102 @@
+package it.demo.fabrick.unit.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.cache.CacheWarmUp;
+import it.demo.fabrick.cache.KnownTransactionIds;
+import it.demo.fabrick.cache.TransactionDayCache;
+import it.demo.fabrick.cache.TransactionHistoryStore;
+import it.demo.fabrick.db.DatabasePool;
+import it.demo.fabrick.db.SchemaMigrator;
+import it.demo.fabrick.unit.testutil.VerticleTestUtils;
+
+/**
+ * Unit tests for CacheWarmUp, against an in-memory H2 database migrated to the application schema.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("CacheWarmUp Tests")
+class CacheWarmUpTest {
+
+	private static final String DB_URL = "jdbc:h2:mem:warmup-test;DB_CLOSE_DELAY=-1";
+	private static final String ACCOUNT_ID = "14537780";
+	private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+	@BeforeEach
+	void setUp() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+			SchemaMigrator.migrate(connection);
+			// 2024-02-20 synced but outside the warm-up days, 03-05 stored but not synced
+			statement.execute("INSERT INTO CONTO_TRANSACTION (TRANSACTION_ID, ACCOUNT_ID, ACCOUNTING_DATE, AMOUNT) VALUES "
+				+ "('T0', '" + ACCOUNT_ID + "', '2024-02-20', 1), "
+				+ "('T1', '" + ACCOUNT_ID + "', '2024-03-03', 1), "
+				+ "('T2', '" + ACCOUNT_ID + "', '2024-03-03', 2), "
+				+ "('T9', '" + ACCOUNT_ID + "', '2024-03-05', 1)");
+			statement.execute("INSERT INTO CONTO_TRANSACTION_SYNC (ACCOUNT_ID, ACCOUNTING_DATE, SYNCED_AT) VALUES "
+				+ "('" + ACCOUNT_ID + "', '2024-02-20', CURRENT_TIMESTAMP), "
+				+ "('" + ACCOUNT_ID + "', '2024-03-02', CURRENT_TIMESTAMP), "
+				+ "('" + ACCOUNT_ID + "', '2024-03-03', CURRENT_TIMESTAMP)");
+		}
+	}
+
+	@Test
+	@DisplayName("run - should load the known ids and the synced days of the last days into the caches")
+	void testRun(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+		DatabasePool databasePool = VerticleTestUtils.databasePool(DB_URL);
+		KnownTransactionIds knownIds = new KnownTransactionIds(registry, databasePool, true, 1000);
+		TransactionHistoryStore historyStore = new TransactionHistoryStore(registry, true, databasePool);
+		TransactionDayCache dayCache = new TransactionDayCache(true, 2, 1000, registry, clock);
+
+		new CacheWarmUp(registry, knownIds, historyStore, dayCache, ACCOUNT_ID, true, 10, clock).run(vertx)
+			.onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+				assertEquals(4, knownIds.size());
+
+				TransactionDayCache.Lookup lookup = dayCache.get(ACCOUNT_ID, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 3));
+				assertTrue(lookup.missing().isEmpty());
+				assertTrue(lookup.cachedDays().get(LocalDate.of(2024, 3, 2)).isEmpty());
+				assertEquals(2, lookup.cachedDays().get(LocalDate.of(2024, 3, 3)).size());
+				assertEquals(2.0, registry.get("cache.transactions.size").gauge().value());
+
+				assertEquals(0.0, registry.get("history.transactions.days").tag("result", "hit").counter().count());
+				assertEquals(1, registry.get("cache.warmup").timer().count());
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("run - should leave the caches empty when disabled")
+	void testRun_disabled(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		DatabasePool databasePool = VerticleTestUtils.databasePool(DB_URL);
+		KnownTransactionIds knownIds = new KnownTransactionIds(registry, databasePool, true, 1000);
+		TransactionDayCache dayCache = new TransactionDayCache(true, 2, 1000, registry);
+
+		new CacheWarmUp(registry, knownIds, new TransactionHistoryStore(registry, true, databasePool), dayCache,
+			ACCOUNT_ID, false, 10, Clock.systemDefaultZone()).run(vertx)
+			.onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+				assertEquals(0, knownIds.size());
+				assertEquals(0.0, registry.get("cache.transactions.size").gauge().value());
+				testContext.completeNow();
+			})));
+	}
+}
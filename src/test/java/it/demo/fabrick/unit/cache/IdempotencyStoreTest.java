@@ -0,0 +1,107 @@
+package it.demo.fabrick.unit.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.cache.IdempotencyStore;
+import it.demo.fabrick.dto.rest.BonificoRestResponseDto;
+import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.unit.testutil.VerticleTestUtils;
+import it.demo.fabrick.utils.StatusConstants;
+
+/**
+ * Unit tests for IdempotencyStore, against an in-memory H2 database.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("IdempotencyStore Tests")
+class IdempotencyStoreTest {
+
+	private static final String DB_URL = "jdbc:h2:mem:idempotency-test;DB_CLOSE_DELAY=-1";
+
+	@BeforeEach
+	void setUp() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS IDEMPOTENCY_KEY");
+			statement.execute("CREATE TABLE IDEMPOTENCY_KEY (IDEMPOTENCY_KEY VARCHAR(255) PRIMARY KEY, "
+				+ "REQUEST_FINGERPRINT VARCHAR(64) NOT NULL, RESPONSE_BODY VARCHAR(4000) NOT NULL, "
+				+ "CREATED_AT TIMESTAMP NOT NULL)");
+		}
+	}
+
+	private static IdempotencyStore store(long memoryTtlMillis) {
+		return new IdempotencyStore(new ObjectMapper(), new SimpleMeterRegistry(),
+			VerticleTestUtils.databasePool(DB_URL), memoryTtlMillis, 24);
+	}
+
+	@Test
+	@DisplayName("execute - concurrent duplicates should wait for the first attempt")
+	void testExecute_concurrentDuplicatesShareFirstAttempt(Vertx vertx, VertxTestContext testContext) {
+		IdempotencyStore store = store(600000);
+		Context context = vertx.getOrCreateContext();
+		AtomicInteger calls = new AtomicInteger();
+		Promise<BonificoRestResponseDto> transfer = Promise.promise();
+
+		Future<BonificoRestResponseDto> first = store.execute(context, "key-1", "hash", () -> {
+			calls.incrementAndGet();
+			return transfer.future();
+		});
+		Future<BonificoRestResponseDto> second = store.execute(context, "key-1", "hash", () -> {
+			calls.incrementAndGet();
+			return Future.succeededFuture(BonificoRestResponseDto.error("duplicate"));
+		});
+		Future<BonificoRestResponseDto> otherRequest = store.execute(context, "key-1", "other-hash",
+			() -> Future.succeededFuture(BonificoRestResponseDto.error("duplicate")));
+
+		vertx.setTimer(50, id -> transfer.complete(BonificoRestResponseDto.success(StatusConstants.STATUS_PENDING)));
+
+		Future.all(first, second).onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+			assertEquals(1, calls.get());
+			assertEquals(StatusConstants.STATUS_PENDING, second.result().getTransferId());
+			assertTrue(otherRequest.failed());
+			assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, ((ReplyException) otherRequest.cause()).failureCode());
+			testContext.completeNow();
+		})));
+	}
+
+	@Test
+	@DisplayName("execute - should replay the stored response once evicted from memory")
+	void testExecute_replaysStoredResponse(Vertx vertx, VertxTestContext testContext) {
+		IdempotencyStore store = store(1);
+		Context context = vertx.getOrCreateContext();
+		AtomicInteger calls = new AtomicInteger();
+
+		store.execute(context, "key-2", "hash", () -> {
+			calls.incrementAndGet();
+			return Future.succeededFuture(BonificoRestResponseDto.success(StatusConstants.STATUS_PENDING));
+		}).onComplete(testContext.succeeding(first -> vertx.setTimer(200, id ->
+			store.execute(context, "key-2", "hash", () -> {
+				calls.incrementAndGet();
+				return Future.succeededFuture(BonificoRestResponseDto.error("duplicate"));
+			}).onComplete(testContext.succeeding(replayed -> testContext.verify(() -> {
+				assertEquals(1, calls.get());
+				assertEquals(StatusConstants.STATUS_PENDING, replayed.getTransferId());
+				testContext.completeNow();
+			}))))));
+	}
+}
@@ -0,0 +1,104 @@
+package it.demo.fabrick.unit.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.cache.KnownTransactionIds;
+import it.demo.fabrick.db.SchemaMigrator;
+import it.demo.fabrick.unit.testutil.VerticleTestUtils;
+
+/**
+ * Unit tests for KnownTransactionIds, against an in-memory H2 database migrated to the application schema.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("KnownTransactionIds Tests")
+class KnownTransactionIdsTest {
+
+	private static final String DB_URL = "jdbc:h2:mem:known-ids-test;DB_CLOSE_DELAY=-1";
+
+	/** More than one load page */
+	private static final int STORED = 12345;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+			SchemaMigrator.migrate(connection);
+			try (PreparedStatement insert = connection.prepareStatement("INSERT INTO CONTO_TRANSACTION "
+				+ "(TRANSACTION_ID, ACCOUNT_ID, ACCOUNTING_DATE, AMOUNT) VALUES (?, '14537780', '2024-03-01', 1)")) {
+				for (int i = 0; i < STORED; i++) {
+					insert.setString(1, "T" + i);
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("load - should load every stored id and report size, memory and false-positive rate")
+	void testLoad(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		KnownTransactionIds knownIds = new KnownTransactionIds(registry, VerticleTestUtils.databasePool(DB_URL), true, 100000);
+
+		knownIds.load(vertx).onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+			assertEquals(STORED, knownIds.size());
+			assertTrue(knownIds.contains("T0"));
+			assertTrue(knownIds.contains("T" + (STORED - 1)));
+			assertFalse(knownIds.contains("T" + STORED));
+
+			assertEquals(STORED, registry.get("known.transactions.ids").gauge().value());
+			assertEquals(32768 * 8, registry.get("known.transactions.bytes").gauge().value());
+			assertTrue(registry.get("known.transactions.false.positive.rate").gauge().value() < 1e-14);
+			assertEquals(2.0, registry.get("known.transactions.hits").counter().count());
+			testContext.completeNow();
+		})));
+	}
+
+	@Test
+	@DisplayName("addAll - should add ids up to maxIds only")
+	void testAddAll_maxIds() {
+		KnownTransactionIds knownIds = new KnownTransactionIds(new SimpleMeterRegistry(),
+			VerticleTestUtils.databasePool(DB_URL), true, 3000);
+		List<String> ids = new ArrayList<String>();
+		for (int i = 0; i < 5000; i++) {
+			ids.add("N" + i);
+		}
+
+		knownIds.addAll(ids);
+		knownIds.addAll(ids);
+
+		assertEquals(3000, knownIds.size());
+		assertTrue(knownIds.contains("N2999"));
+		assertFalse(knownIds.contains("N3000"));
+	}
+
+	@Test
+	@DisplayName("contains - should always miss when disabled")
+	void testContains_disabled() {
+		KnownTransactionIds knownIds = new KnownTransactionIds(new SimpleMeterRegistry(),
+			VerticleTestUtils.databasePool(DB_URL), false, 3000);
+
+		knownIds.addAll(List.of("N1"));
+
+		assertFalse(knownIds.contains("N1"));
+	}
+}
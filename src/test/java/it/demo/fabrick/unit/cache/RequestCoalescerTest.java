@@ -0,0 +1,89 @@
+package it.demo.fabrick.unit.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.cache.RequestCoalescer;
+
+/**
+ * Unit tests for RequestCoalescer.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("RequestCoalescer Tests")
+class RequestCoalescerTest {
+
+	private RequestCoalescer coalescer;
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		coalescer = new RequestCoalescer(registry);
+	}
+
+	@Test
+	@DisplayName("execute - should share one call between identical in-flight requests")
+	void testExecute_coalescesIdenticalRequests(Vertx vertx, VertxTestContext testContext) {
+		Context context = vertx.getOrCreateContext();
+		AtomicInteger calls = new AtomicInteger();
+		Promise<Buffer> upstream = Promise.promise();
+		Buffer response = Buffer.buffer("{\"balance\":10}");
+
+		Future<Buffer> first = coalescer.execute(context, "saldo_bus:1", () -> {
+			calls.incrementAndGet();
+			return upstream.future();
+		});
+		Future<Buffer> second = coalescer.execute(context, "saldo_bus:1", () -> {
+			calls.incrementAndGet();
+			return Future.succeededFuture(Buffer.buffer());
+		});
+
+		upstream.complete(response);
+
+		Future.all(first, second).onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+			assertEquals(1, calls.get());
+			assertSame(response, first.result());
+			assertSame(response, second.result());
+			assertEquals(1.0, registry.get("http.coalescing.requests").tag("role", "follower").counter().count());
+			testContext.completeNow();
+		})));
+	}
+
+	@Test
+	@DisplayName("execute - should release the key once the call completes")
+	void testExecute_releasesKeyAfterCompletion(Vertx vertx, VertxTestContext testContext) {
+		Context context = vertx.getOrCreateContext();
+		AtomicInteger calls = new AtomicInteger();
+
+		coalescer.execute(context, "lista_bus:1", () -> {
+			calls.incrementAndGet();
+			return Future.<Buffer>failedFuture("ErrorCode 501 - down");
+		}).onComplete(first -> {
+			coalescer.execute(context, "lista_bus:1", () -> {
+				calls.incrementAndGet();
+				return Future.succeededFuture(Buffer.buffer("ok"));
+			}).onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+				assertTrue(first.failed());
+				assertEquals(2, calls.get());
+				assertEquals("ok", result.toString());
+				testContext.completeNow();
+			})));
+		});
+	}
+}
@@ -0,0 +1,97 @@
+package it.demo.fabrick.unit.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.demo.fabrick.cache.TransactionDayCache;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.utils.DateRange;
+
+/**
+ * Unit tests for TransactionDayCache.
+ */
+@DisplayName("TransactionDayCache Tests")
+class TransactionDayCacheTest {
+
+	private static final String ACCOUNT_ID = "14537780";
+	private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+	private SimpleMeterRegistry registry;
+	private TransactionDayCache cache;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+		cache = new TransactionDayCache(true, 2, 5, registry, clock);
+	}
+
+	@Test
+	@DisplayName("get - should fetch only today and yesterday once past days are cached")
+	void testGet_onlyMutableDaysMissing() {
+		DateRange range = new DateRange(TODAY.minusDays(4), TODAY);
+		assertEquals(List.of(range), cache.get(ACCOUNT_ID, range.from(), range.to()).missing());
+
+		cache.put(ACCOUNT_ID, range, List.of(transaction(TODAY), transaction(TODAY.minusDays(3))));
+
+		TransactionDayCache.Lookup lookup = cache.get(ACCOUNT_ID, range.from(), range.to());
+		assertEquals(List.of(new DateRange(TODAY.minusDays(1), TODAY)), lookup.missing());
+		assertEquals(3, lookup.cachedDays().size());
+		assertEquals(1, lookup.cachedDays().get(TODAY.minusDays(3)).size());
+		assertTrue(lookup.cachedDays().get(TODAY.minusDays(2)).isEmpty(), "empty days are cached too");
+	}
+
+	@Test
+	@DisplayName("get - should count a miss for every day of a range longer than a month")
+	void testGet_missesOverMonths() {
+		LocalDate from = LocalDate.of(2024, 1, 1);
+		LocalDate to = LocalDate.of(2024, 2, 1);
+		cache.put(ACCOUNT_ID, new DateRange(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 11)), List.of());
+
+		TransactionDayCache.Lookup lookup = cache.get(ACCOUNT_ID, from, to);
+
+		assertEquals(2, lookup.cachedDays().size());
+		assertEquals(2.0, registry.get("cache.transactions.days").tag("result", "hit").counter().count());
+		assertEquals(30.0, registry.get("cache.transactions.days").tag("result", "miss").counter().count());
+	}
+
+	@Test
+	@DisplayName("immutableDays - should drop today and yesterday from the range")
+	void testImmutableDays() {
+		DateRange past = new DateRange(TODAY.minusDays(10), TODAY.minusDays(5));
+
+		assertEquals(new DateRange(TODAY.minusDays(4), TODAY.minusDays(2)),
+			cache.immutableDays(new DateRange(TODAY.minusDays(4), TODAY)));
+		assertEquals(past, cache.immutableDays(past));
+		assertNull(cache.immutableDays(new DateRange(TODAY.minusDays(1), TODAY)));
+	}
+
+	@Test
+	@DisplayName("put - should evict least recently used days above the size bound")
+	void testPut_evictsLeastRecentlyUsed() {
+		LocalDate oldest = TODAY.minusDays(20);
+		cache.put(ACCOUNT_ID, new DateRange(oldest, oldest), List.of(transaction(oldest), transaction(oldest)));
+		cache.put(ACCOUNT_ID, new DateRange(TODAY.minusDays(6), TODAY.minusDays(3)), List.of());
+
+		assertEquals(List.of(new DateRange(oldest, oldest)), cache.get(ACCOUNT_ID, oldest, oldest).missing());
+		assertEquals(4.0, registry.get("cache.transactions.size").gauge().value());
+		assertEquals(1.0, registry.get("cache.transactions.evictions").counter().count());
+	}
+
+	private static ListaTransactionDto transaction(LocalDate accountingDate) {
+		ListaTransactionDto transaction = new ListaTransactionDto();
+		transaction.setAccountingDate(accountingDate.toString());
+		return transaction;
+	}
+}
@@ -0,0 +1,130 @@
+package it.demo.fabrick.unit.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.cache.TransactionHistoryStore;
+import it.demo.fabrick.db.SchemaMigrator;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.unit.testutil.VerticleTestUtils;
+import it.demo.fabrick.utils.DateRange;
+
+/**
+ * Unit tests for TransactionHistoryStore, against an in-memory H2 database migrated to the application schema.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("TransactionHistoryStore Tests")
+class TransactionHistoryStoreTest {
+
+	private static final String DB_URL = "jdbc:h2:mem:history-test;DB_CLOSE_DELAY=-1";
+	private static final String ACCOUNT_ID = "14537780";
+
+	@BeforeEach
+	void setUp() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+			SchemaMigrator.migrate(connection);
+			// 2024-03-01..03 synced (03-02 without transactions), 03-05 has rows but is not synced
+			statement.execute("INSERT INTO CONTO_TRANSACTION (TRANSACTION_ID, ACCOUNT_ID, OPERATION_ID, ACCOUNTING_DATE, "
+				+ "VALUE_DATE, TYPE_ENUMERATION, TYPE_VALUE, AMOUNT, CURRENCY, DESCRIPTION) VALUES "
+				+ "('T2', '" + ACCOUNT_ID + "', 'OP2', '2024-03-03', '2024-03-04', 'GBS_TRANSACTION_TYPE', "
+				+ "'GBS_TRANSACTION_TYPE_0050', -25.5, 'EUR', 'PAYMENT'), "
+				+ "('T1', '" + ACCOUNT_ID + "', 'OP1', '2024-03-03', '2024-03-03', NULL, NULL, 100, 'EUR', 'SALARY'), "
+				+ "('T0', '" + ACCOUNT_ID + "', 'OP0', '2024-03-01', '2024-03-01', NULL, NULL, 10, 'EUR', 'REFUND'), "
+				+ "('T9', '" + ACCOUNT_ID + "', 'OP9', '2024-03-05', '2024-03-05', NULL, NULL, 1, 'EUR', 'PENDING'), "
+				+ "('X1', 'other', 'OPX', '2024-03-03', '2024-03-03', NULL, NULL, 1, 'EUR', 'OTHER ACCOUNT')");
+			statement.execute("INSERT INTO CONTO_TRANSACTION_SYNC (ACCOUNT_ID, ACCOUNTING_DATE, SYNCED_AT) VALUES "
+				+ "('" + ACCOUNT_ID + "', '2024-03-01', CURRENT_TIMESTAMP), "
+				+ "('" + ACCOUNT_ID + "', '2024-03-02', CURRENT_TIMESTAMP), "
+				+ "('" + ACCOUNT_ID + "', '2024-03-03', CURRENT_TIMESTAMP)");
+		}
+	}
+
+	private static TransactionHistoryStore store(boolean enabled, SimpleMeterRegistry registry) {
+		return new TransactionHistoryStore(registry, enabled, VerticleTestUtils.databasePool(DB_URL));
+	}
+
+	@Test
+	@DisplayName("find - should read the synced days and leave the other days to fetch")
+	void testFind_syncedDays(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		DateRange range = new DateRange(LocalDate.of(2024, 2, 28), LocalDate.of(2024, 3, 6));
+
+		store(true, registry).find(vertx, ACCOUNT_ID, List.of(range))
+			.onComplete(testContext.succeeding(lookup -> testContext.verify(() -> {
+				assertEquals(3, lookup.cachedDays().size());
+				assertTrue(lookup.cachedDays().get(LocalDate.of(2024, 3, 2)).isEmpty());
+				List<ListaTransactionDto> day = lookup.cachedDays().get(LocalDate.of(2024, 3, 3));
+				assertEquals(List.of("T1", "T2"), day.stream().map(ListaTransactionDto::getTransactionId).toList());
+				ListaTransactionDto payment = day.get(1);
+				assertEquals("2024-03-04", payment.getValueDate());
+				assertEquals("GBS_TRANSACTION_TYPE_0050", payment.getType().getValue());
+				assertEquals(0, payment.getAmount().compareTo(new BigDecimal("-25.5")));
+
+				assertEquals(List.of(new DateRange(LocalDate.of(2024, 3, 4), LocalDate.of(2024, 3, 6)),
+					new DateRange(LocalDate.of(2024, 2, 28), LocalDate.of(2024, 2, 29))), lookup.missing());
+				assertEquals(3.0, registry.get("history.transactions.days").tag("result", "hit").counter().count());
+				assertEquals(5.0, registry.get("history.transactions.days").tag("result", "miss").counter().count());
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("find - should leave every range to fetch when disabled")
+	void testFind_disabled(Vertx vertx, VertxTestContext testContext) {
+		List<DateRange> ranges = List.of(new DateRange(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 3)));
+
+		store(false, new SimpleMeterRegistry()).find(vertx, ACCOUNT_ID, ranges)
+			.onComplete(testContext.succeeding(lookup -> testContext.verify(() -> {
+				assertTrue(lookup.cachedDays().isEmpty());
+				assertEquals(ranges, lookup.missing());
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("find - should count every day of ranges longer than a month")
+	void testFind_rangeOverMonths(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		DateRange range = new DateRange(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 3));
+
+		store(true, registry).find(vertx, ACCOUNT_ID, List.of(range))
+			.onComplete(testContext.succeeding(lookup -> testContext.verify(() -> {
+				assertEquals(3, lookup.cachedDays().size());
+				assertEquals(3.0, registry.get("history.transactions.days").tag("result", "hit").counter().count());
+				assertEquals(60.0, registry.get("history.transactions.days").tag("result", "miss").counter().count());
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("find - should serve the amounts with 2 decimals, as Fabrick does")
+	void testFind_amountScale(Vertx vertx, VertxTestContext testContext) {
+		DateRange range = new DateRange(LocalDate.of(2024, 3, 3), LocalDate.of(2024, 3, 3));
+
+		store(true, new SimpleMeterRegistry()).find(vertx, ACCOUNT_ID, List.of(range))
+			.onComplete(testContext.succeeding(lookup -> testContext.verify(() -> {
+				List<ListaTransactionDto> day = lookup.cachedDays().get(LocalDate.of(2024, 3, 3));
+				assertEquals("100.00", day.get(0).getAmount().toString());
+				assertEquals("-25.50", day.get(1).getAmount().toString());
+				testContext.completeNow();
+			})));
+	}
+}
@@ -0,0 +1,84 @@
+package it.demo.fabrick.unit.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.cache.TransferJobStore;
+import it.demo.fabrick.dto.rest.BonificoRestResponseDto;
+import it.demo.fabrick.dto.rest.TransferJobDto;
+import it.demo.fabrick.utils.StatusConstants;
+
+/**
+ * Unit tests for TransferJobStore.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("TransferJobStore Tests")
+class TransferJobStoreTest {
+
+	@Test
+	@DisplayName("complete - should move the job from PENDING to EXECUTED or FAILED")
+	void testComplete_updatesStatus(Vertx vertx) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		TransferJobStore store = new TransferJobStore(60000, registry);
+
+		assertEquals(StatusConstants.STATUS_PENDING, store.create("t-1").getStatus());
+		store.create("t-2");
+		store.create("t-3");
+		assertEquals(3.0, registry.get("transfer.jobs.pending").gauge().value());
+
+		store.complete(vertx, "t-1", BonificoRestResponseDto.success(StatusConstants.STATUS_PENDING));
+		store.complete(vertx, "t-2", BonificoRestResponseDto.error("rejected by Fabrick"));
+		store.fail(vertx, "t-3", "ErrorCode 501 - Unable to call Fabrick API");
+
+		TransferJobDto executed = store.get("t-1");
+		assertEquals(StatusConstants.STATUS_EXECUTED, executed.getStatus());
+		assertNotNull(executed.getCompletedAt());
+		assertEquals(StatusConstants.OK, executed.getResult().getStatus());
+		assertEquals(StatusConstants.STATUS_FAILED, store.get("t-2").getStatus());
+		assertEquals("rejected by Fabrick", store.get("t-2").getMessage());
+		assertEquals(StatusConstants.STATUS_FAILED, store.get("t-3").getStatus());
+		assertEquals(0.0, registry.get("transfer.jobs.pending").gauge().value());
+	}
+
+	@Test
+	@DisplayName("complete - should mark UNKNOWN, not FAILED, a transfer that may have been executed")
+	void testComplete_unknownOutcome(Vertx vertx) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		TransferJobStore store = new TransferJobStore(60000, registry);
+		store.create("t-1");
+		store.create("t-2");
+
+		store.complete(vertx, "t-1", BonificoRestResponseDto.error(StatusConstants.ERROR_VALIDATION_UNAVAILABLE));
+		store.unknown(vertx, "t-2", StatusConstants.ERROR_TRANSFER_DEADLINE_EXCEEDED);
+
+		assertEquals(StatusConstants.STATUS_UNKNOWN, store.get("t-1").getStatus());
+		assertEquals(StatusConstants.ERROR_VALIDATION_UNAVAILABLE, store.get("t-1").getMessage());
+		assertEquals(StatusConstants.STATUS_UNKNOWN, store.get("t-2").getStatus());
+		assertEquals(2.0, registry.get("transfer.jobs.completed").tag("status", StatusConstants.STATUS_UNKNOWN)
+			.counter().count());
+		assertEquals(0.0, registry.get("transfer.jobs.completed").tag("status", StatusConstants.STATUS_FAILED)
+			.counter().count());
+	}
+
+	@Test
+	@DisplayName("complete - should drop completed jobs after the TTL")
+	void testComplete_expiresJob(Vertx vertx, VertxTestContext testContext) {
+		TransferJobStore store = new TransferJobStore(50, new SimpleMeterRegistry());
+		store.create("t-1");
+		store.complete(vertx, "t-1", BonificoRestResponseDto.success(StatusConstants.STATUS_PENDING));
+
+		vertx.setTimer(200, id -> testContext.verify(() -> {
+			assertNull(store.get("t-1"));
+			testContext.completeNow();
+		}));
+	}
+}
@@ -0,0 +1,60 @@
+package it.demo.fabrick.unit.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import it.demo.fabrick.client.CircuitBreaker;
+
+/**
+ * Unit tests for CircuitBreaker state transitions.
+ */
+@DisplayName("CircuitBreaker Tests")
+class CircuitBreakerTest {
+
+	private final AtomicLong now = new AtomicLong();
+	private final CircuitBreaker breaker = new CircuitBreaker("saldo", 3, 1000, now::get);
+
+	@Test
+	@DisplayName("should open after consecutive failures and close after a successful trial call")
+	void testOpenHalfOpenClose() {
+		breaker.onFailure();
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onFailure();
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "a success resets the failure count");
+
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+
+		now.addAndGet(1000);
+		assertTrue(breaker.allowRequest(), "trial call after the reset timeout");
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest(), "a single trial call at a time");
+
+		breaker.onSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.allowRequest());
+	}
+
+	@Test
+	@DisplayName("should open again when the trial call fails")
+	void testHalfOpenFailureReopens() {
+		for (int i = 0; i < 3; i++) {
+			breaker.onFailure();
+		}
+		now.addAndGet(1000);
+		assertTrue(breaker.allowRequest());
+
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+	}
+}
@@ -0,0 +1,245 @@
+package it.demo.fabrick.unit.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reactiverse.contextual.logging.ContextualData;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.client.FabrickClientFactory;
+import it.demo.fabrick.client.FabrickHttpClient;
+import it.demo.fabrick.client.FabrickUnavailableException;
+import it.demo.fabrick.config.FabrickClientProperties;
+import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.utils.Deadline;
+
+/**
+ * Unit tests for FabrickClientFactory and FabrickClientProperties.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("FabrickClientFactory Tests")
+class FabrickClientFactoryTest {
+
+	@Test
+	@DisplayName("toWebClientOptions - should map pool and keep-alive settings")
+	void testToWebClientOptions_mapsSettings() {
+		FabrickClientProperties properties = new FabrickClientProperties();
+		properties.setMaxPoolSize(50);
+		properties.setKeepAliveTimeout(30);
+		properties.setPipelining(true);
+		properties.setIdleTimeout(15);
+
+		WebClientOptions options = properties.toWebClientOptions();
+
+		assertEquals(50, options.getMaxPoolSize());
+		assertEquals(30, options.getKeepAliveTimeout());
+		assertTrue(options.isPipelining());
+		assertEquals(15, options.getIdleTimeout());
+		assertEquals(HttpVersion.HTTP_1_1, options.getProtocolVersion());
+		assertFalse(options.isUseAlpn());
+	}
+
+	@Test
+	@DisplayName("toWebClientOptions - should negotiate HTTP/2 when enabled")
+	void testToWebClientOptions_http2() {
+		FabrickClientProperties properties = new FabrickClientProperties();
+		properties.setHttp2(true);
+
+		WebClientOptions options = properties.toWebClientOptions();
+
+		assertEquals(HttpVersion.HTTP_2, options.getProtocolVersion());
+		assertTrue(options.isUseAlpn());
+	}
+
+	@Test
+	@DisplayName("create/close - should report pool capacity of the open clients")
+	void testCreateAndClose_reportsPoolCapacity(Vertx vertx) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		FabrickClientProperties properties = new FabrickClientProperties();
+		FabrickClientFactory factory = new FabrickClientFactory(properties, registry);
+
+		FabrickHttpClient first = factory.create(vertx, "saldo", "key", "S2S");
+		FabrickHttpClient second = factory.create(vertx, "saldo", "key", "S2S");
+
+		double capacity = registry.get("fabrick.client.pool.capacity").tag("client", "saldo").gauge().value();
+		assertEquals(2.0 * properties.getMaxPoolSize(), capacity);
+		assertEquals(properties.getAdaptiveInitialLimit(),
+			registry.get("fabrick.client.limit").tag("client", "saldo").gauge().value());
+
+		first.close();
+		second.close();
+
+		capacity = registry.get("fabrick.client.pool.capacity").tag("client", "saldo").gauge().value();
+		assertEquals(0.0, capacity);
+	}
+
+	@Test
+	@DisplayName("send - should fail fast once the endpoint circuit is open")
+	void testSend_circuitOpenFailsFast(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		FabrickClientProperties properties = new FabrickClientProperties();
+		properties.setCircuitBreakerMaxFailures(2);
+		FabrickHttpClient client = new FabrickClientFactory(properties, registry).create(vertx, "saldo", "key", "S2S");
+		String unreachable = "http://localhost:1/balance";
+
+		client.send(HttpMethod.GET, unreachable, null)
+			.recover(e -> client.send(HttpMethod.GET, unreachable, null))
+			.recover(e -> client.send(HttpMethod.GET, unreachable, null))
+			.onComplete(testContext.failing(cause -> testContext.verify(() -> {
+				assertInstanceOf(FabrickUnavailableException.class, cause);
+				assertEquals(ErrorCode.API_CIRCUIT_OPEN, ((FabrickUnavailableException) cause).getErrorCode());
+				assertEquals(2.0, registry.get("fabrick.circuit.state").tag("client", "saldo").gauge().value());
+				assertEquals(1.0, registry.get("fabrick.client.rejections").tag("reason", "circuit_open").counter().count());
+				client.close();
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("send - should reject calls over the bulkhead limit")
+	void testSend_bulkheadFull(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		FabrickClientProperties properties = new FabrickClientProperties();
+		properties.setBulkheadMaxConcurrentCalls(0);
+		FabrickHttpClient client = new FabrickClientFactory(properties, registry).create(vertx, "lista", "key", "S2S");
+
+		client.send(HttpMethod.GET, "http://localhost:1/transactions", null)
+			.onComplete(testContext.failing(cause -> testContext.verify(() -> {
+				assertEquals(ErrorCode.API_BULKHEAD_FULL, ((FabrickUnavailableException) cause).getErrorCode());
+				assertEquals(1.0, registry.get("fabrick.client.rejections").tag("reason", "bulkhead_full").counter().count());
+				client.close();
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("get - should retry connection errors up to the max attempts")
+	void testGet_retriesConnectionErrors(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		FabrickClientProperties properties = new FabrickClientProperties();
+		properties.setRetryInitialBackoff(10);
+		FabrickHttpClient client = new FabrickClientFactory(properties, registry).create(vertx, "saldo", "key", "S2S");
+
+		client.get("http://localhost:1/balance")
+			.onComplete(testContext.failing(cause -> testContext.verify(() -> {
+				assertEquals(2.0, registry.get("fabrick.client.retries").counter().count());
+				assertEquals(3L, registry.get("fabrick.client.requests").tag("outcome", "failure").timer().count());
+				client.close();
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("get - should stop retrying once the retry budget is exhausted")
+	void testGet_retryBudgetExhausted(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		FabrickClientProperties properties = new FabrickClientProperties();
+		properties.setRetryInitialBackoff(10);
+		properties.setRetryBudgetMaxTokens(1);
+		FabrickHttpClient client = new FabrickClientFactory(properties, registry).create(vertx, "lista", "key", "S2S");
+
+		client.get("http://localhost:1/transactions")
+			.onComplete(testContext.failing(cause -> testContext.verify(() -> {
+				assertEquals(1.0, registry.get("fabrick.client.retries").counter().count());
+				assertEquals(1.0, registry.get("fabrick.client.retry.budget.exhausted").counter().count());
+				client.close();
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("get - should ignore a hedge rejected by the saturated bulkhead and wait for the primary")
+	void testGet_hedgeRejectedLocally(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		FabrickClientProperties properties = new FabrickClientProperties();
+		properties.setBulkheadMaxConcurrentCalls(1);
+		properties.setAdaptiveLimit(false);
+		properties.setHedging(true);
+		properties.setHedgingMinSamples(1);
+		properties.setHedgingMinDelay(10);
+		FabrickHttpClient client = new FabrickClientFactory(properties, registry).create(vertx, "lista", "key", "S2S");
+
+		vertx.createHttpServer()
+			.requestHandler(request -> {
+				long delay = request.path().equals("/slow") ? 500 : 1;
+				vertx.setTimer(delay, id -> request.response().end("{}"));
+			})
+			.listen(0)
+			.compose(server -> {
+				String base = "http://localhost:" + server.actualPort();
+				// the p95 used as hedging delay is computed every 16 samples, past the first (connecting) call
+				Future<HttpResponse<Buffer>> warmUp = client.get(base + "/fast");
+				for (int i = 1; i < 32; i++) {
+					warmUp = warmUp.compose(fast -> client.get(base + "/fast"));
+				}
+				return warmUp.compose(fast -> client.get(base + "/slow"));
+			})
+			.onComplete(testContext.succeeding(response -> testContext.verify(() -> {
+				assertEquals(200, response.statusCode());
+				assertEquals(1.0, registry.get("fabrick.client.rejections").tag("reason", "bulkhead_full").counter().count());
+				assertEquals(0.0, registry.get("fabrick.client.hedges").tag("result", "won").counter().count());
+				client.close();
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("get - should not call Fabrick once the message deadline has passed")
+	void testGet_deadlineExceeded(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		FabrickHttpClient client = new FabrickClientFactory(new FabrickClientProperties(), registry)
+			.create(vertx, "saldo", "key", "S2S");
+
+		vertx.getOrCreateContext().runOnContext(v -> {
+			ContextualData.put(Deadline.HEADER, String.valueOf(System.currentTimeMillis() - 1));
+
+			client.get("http://localhost:1/balance")
+				.onComplete(testContext.failing(cause -> testContext.verify(() -> {
+					assertEquals(ErrorCode.DEADLINE_EXCEEDED, ((FabrickUnavailableException) cause).getErrorCode());
+					assertEquals(0.0, registry.get("fabrick.client.retries").counter().count());
+					assertEquals(0L, registry.get("fabrick.client.requests").tag("outcome", "failure").timer().count());
+					client.close();
+					testContext.completeNow();
+				})));
+		});
+	}
+
+	@Test
+	@DisplayName("send - should wait for the response of a POST past the message deadline")
+	void testSend_postNotCutByDeadline(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		FabrickHttpClient client = new FabrickClientFactory(new FabrickClientProperties(), registry)
+			.create(vertx, "bonifico", "key", "S2S");
+
+		vertx.createHttpServer()
+			.requestHandler(request -> vertx.setTimer(300, id -> request.response().end("{}")))
+			.listen(0)
+			.onComplete(testContext.succeeding(server -> vertx.getOrCreateContext().runOnContext(v -> {
+				String url = "http://localhost:" + server.actualPort() + "/money-transfers";
+				ContextualData.put(Deadline.HEADER, String.valueOf(System.currentTimeMillis() + 100));
+
+				Future<HttpResponse<Buffer>> get = client.send(HttpMethod.GET, url, null);
+				Future<HttpResponse<Buffer>> post = client.send(HttpMethod.POST, url, Buffer.buffer("{}"));
+				Future.join(get, post).onComplete(ar -> testContext.verify(() -> {
+					assertTrue(get.failed());
+					assertEquals(200, post.result().statusCode());
+					client.close();
+					testContext.completeNow();
+				}));
+			})));
+	}
+}
@@ -0,0 +1,57 @@
+package it.demo.fabrick.unit.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import it.demo.fabrick.client.LatencyTracker;
+import it.demo.fabrick.client.RetryBudget;
+
+/**
+ * Unit tests for RetryBudget and LatencyTracker.
+ */
+@DisplayName("RetryBudget Tests")
+class RetryBudgetTest {
+
+	@Test
+	@DisplayName("should allow the burst, then one retry every 1/ratio requests")
+	void testBudgetRefillsWithRequests() {
+		RetryBudget budget = new RetryBudget(0.25, 2);
+
+		assertTrue(budget.tryWithdraw());
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw(), "burst exhausted");
+
+		for (int i = 0; i < 3; i++) {
+			budget.deposit();
+		}
+		assertFalse(budget.tryWithdraw(), "3 requests earn 0.75 retries");
+		budget.deposit();
+		assertTrue(budget.tryWithdraw());
+	}
+
+	@Test
+	@DisplayName("should cap the balance at the burst size")
+	void testBudgetCapped() {
+		RetryBudget budget = new RetryBudget(0.5, 3);
+		for (int i = 0; i < 100; i++) {
+			budget.deposit();
+		}
+		assertEquals(3.0, budget.getTokens());
+	}
+
+	@Test
+	@DisplayName("LatencyTracker - should report p95 only after the warm-up samples")
+	void testLatencyTrackerP95() {
+		LatencyTracker tracker = new LatencyTracker();
+		for (int i = 1; i <= 160; i++) {
+			tracker.record(i);
+		}
+
+		assertEquals(152, tracker.p95(20));
+		assertEquals(-1, tracker.p95(161));
+	}
+}
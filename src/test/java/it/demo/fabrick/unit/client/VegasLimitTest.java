@@ -0,0 +1,64 @@
+package it.demo.fabrick.unit.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import it.demo.fabrick.client.VegasLimit;
+
+/**
+ * Unit tests for the VegasLimit adjustments.
+ */
+@DisplayName("VegasLimit Tests")
+class VegasLimitTest {
+
+	private static final long RTT = 10_000_000L;
+
+	@Test
+	@DisplayName("should grow while the RTT stays at the no-load RTT and the limit is in use")
+	void testGrowsWithoutQueueing() {
+		VegasLimit limit = new VegasLimit(10, 100);
+		limit.onSample(RTT, 10, false);
+
+		int grown = limit.onSample(RTT, 10, false);
+
+		assertEquals(16, grown);
+	}
+
+	@Test
+	@DisplayName("should not grow while less than half of the limit is in use")
+	void testAppLimited() {
+		VegasLimit limit = new VegasLimit(10, 100);
+		limit.onSample(RTT, 2, false);
+
+		assertEquals(10, limit.onSample(RTT, 2, false));
+	}
+
+	@Test
+	@DisplayName("should shrink when the RTT shows queueing or a call fails")
+	void testShrinks() {
+		VegasLimit limit = new VegasLimit(20, 100);
+		limit.onSample(RTT, 20, false);
+
+		assertEquals(19, limit.onSample(RTT * 2, 20, false), "queue estimate 10 > 6 x log10(20)");
+		assertEquals(18, limit.onSample(RTT, 20, true));
+	}
+
+	@Test
+	@DisplayName("should stay between 1 and the max limit")
+	void testBounds() {
+		VegasLimit limit = new VegasLimit(2, 20);
+		limit.onSample(RTT, 2, false);
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(RTT, 1, true);
+		}
+		assertEquals(1, limit.getLimit());
+
+		for (int i = 0; i < 20; i++) {
+			limit.onSample(RTT, 20, false);
+		}
+		assertTrue(limit.getLimit() <= 20);
+	}
+}
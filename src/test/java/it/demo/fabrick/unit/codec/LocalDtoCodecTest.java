@@ -0,0 +1,65 @@
+package it.demo.fabrick.unit.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.buffer.Buffer;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.dto.bus.TransactionPersistenceRequestDto;
+import it.demo.fabrick.vertx.codec.LocalDtoCodec;
+
+/**
+ * Unit tests for LocalDtoCodec.
+ */
+@DisplayName("LocalDtoCodec Tests")
+class LocalDtoCodecTest {
+
+	private final LocalDtoCodec<TransactionPersistenceRequestDto> codec =
+		new LocalDtoCodec<TransactionPersistenceRequestDto>(TransactionPersistenceRequestDto.class, new ObjectMapper());
+
+	@Test
+	@DisplayName("transform - should pass the DTO by reference for local delivery")
+	void testTransform_sameInstance() {
+		TransactionPersistenceRequestDto dto = new TransactionPersistenceRequestDto("req-1", "14537780", List.of(), null, null);
+
+		assertSame(dto, codec.transform(dto));
+	}
+
+	@Test
+	@DisplayName("encodeToWire/decodeFromWire - should round trip for clustered delivery")
+	void testWireRoundTrip() {
+		ListaTransactionDto transaction = new ListaTransactionDto();
+		transaction.setTransactionId("1331714087");
+		transaction.setAccountingDate("2019-04-01");
+		transaction.setAmount(new BigDecimal("-800.00"));
+		transaction.setCurrency("EUR");
+		ListaTransactionDto.Type type = transaction.new Type();
+		type.setEnumeration("GBS_TRANSACTION_TYPE");
+		type.setValue("GBS_TRANSACTION_TYPE_0023");
+		transaction.setType(type);
+
+		TransactionPersistenceRequestDto dto = new TransactionPersistenceRequestDto("req-1", "14537780",
+			List.of(transaction), "2019-01-01", "2019-01-31");
+
+		// Leading bytes simulate the event bus message header preceding the body
+		Buffer buffer = Buffer.buffer().appendInt(42);
+		codec.encodeToWire(buffer, dto);
+		TransactionPersistenceRequestDto decoded = codec.decodeFromWire(4, buffer);
+
+		assertEquals("req-1", decoded.getRequestId());
+		assertEquals("2019-01-31", decoded.getSyncTo());
+		assertEquals(1, decoded.getTransactions().size());
+		ListaTransactionDto decodedTransaction = decoded.getTransactions().get(0);
+		assertEquals("1331714087", decodedTransaction.getTransactionId());
+		assertEquals(0, decodedTransaction.getAmount().compareTo(new BigDecimal("-800.00")));
+		assertEquals("GBS_TRANSACTION_TYPE_0023", decodedTransaction.getType().getValue());
+	}
+}
@@ -0,0 +1,75 @@
+package it.demo.fabrick.unit.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.ThreadingModel;
+import it.demo.fabrick.config.VerticleDeploymentProperties;
+
+/**
+ * Unit tests for VerticleDeploymentProperties.
+ */
+@DisplayName("VerticleDeploymentProperties Tests")
+class VerticleDeploymentPropertiesTest {
+
+	@Test
+	@DisplayName("toDeploymentOptions - should use the default instances on the event loop when not configured")
+	void testToDeploymentOptions_notConfigured() {
+		DeploymentOptions options = new VerticleDeploymentProperties().toDeploymentOptions("saldoVerticle", 3);
+
+		assertEquals(3, options.getInstances());
+		assertEquals(ThreadingModel.EVENT_LOOP, options.getThreadingModel());
+		assertNull(options.getWorkerPoolName());
+	}
+
+	@Test
+	@DisplayName("toDeploymentOptions - should apply the settings of the bean, matched ignoring case")
+	void testToDeploymentOptions_configured() {
+		VerticleDeploymentProperties properties = new VerticleDeploymentProperties();
+		VerticleDeploymentProperties.Deployment persistence = new VerticleDeploymentProperties.Deployment();
+		persistence.setInstances(2);
+		persistence.setThreadingModel(ThreadingModel.WORKER);
+		persistence.setWorkerPoolName("persistence-pool");
+		persistence.setWorkerPoolSize(4);
+		properties.getDeployment().put("transactionpersistenceverticle", persistence);
+
+		DeploymentOptions options = properties.toDeploymentOptions("transactionPersistenceVerticle", 1);
+		DeploymentOptions other = properties.toDeploymentOptions("saldoVerticle", 1);
+
+		assertEquals(2, options.getInstances());
+		assertEquals(ThreadingModel.WORKER, options.getThreadingModel());
+		assertEquals("persistence-pool", options.getWorkerPoolName());
+		assertEquals(4, options.getWorkerPoolSize());
+		assertEquals(1, other.getInstances());
+		assertEquals(ThreadingModel.EVENT_LOOP, other.getThreadingModel());
+	}
+
+	@Test
+	@DisplayName("toDeploymentOptions - should fall back to the default instances when configured with 0 or less")
+	void testToDeploymentOptions_instancesNotPositive() {
+		VerticleDeploymentProperties properties = new VerticleDeploymentProperties();
+		VerticleDeploymentProperties.Deployment lista = new VerticleDeploymentProperties.Deployment();
+		lista.setInstances(0);
+		lista.setThreadingModel(ThreadingModel.VIRTUAL_THREAD);
+		properties.getDeployment().put("listaTransazioniVerticle", lista);
+
+		DeploymentOptions options = properties.toDeploymentOptions("listaTransazioniVerticle", 5);
+
+		assertEquals(5, options.getInstances());
+		assertEquals(ThreadingModel.VIRTUAL_THREAD, options.getThreadingModel());
+	}
+
+	@Test
+	@DisplayName("instancesOrCores - should keep a positive count and use one instance per core otherwise")
+	void testInstancesOrCores() {
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		assertEquals(4, VerticleDeploymentProperties.instancesOrCores(4));
+		assertEquals(cores, VerticleDeploymentProperties.instancesOrCores(0));
+		assertEquals(cores, VerticleDeploymentProperties.instancesOrCores(-1));
+	}
+}
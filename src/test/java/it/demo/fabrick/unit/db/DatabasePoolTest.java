@@ -0,0 +1,70 @@
+package it.demo.fabrick.unit.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.config.DatabasePoolProperties;
+import it.demo.fabrick.db.DatabasePool;
+
+/**
+ * Unit tests for DatabasePool, against an in-memory H2 database.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("DatabasePool Tests")
+class DatabasePoolTest {
+
+	private static final String DB_URL = "jdbc:h2:mem:pool-test;DB_CLOSE_DELAY=-1";
+
+	@Test
+	@DisplayName("withConnection - should run the query and return the connection to the pool")
+	void testWithConnection_query(Vertx vertx, VertxTestContext testContext) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		DatabasePool pool = new DatabasePool(new DatabasePoolProperties(), registry, DB_URL, "org.h2.Driver", "sa", "");
+
+		pool.withConnection(vertx, conn -> conn.query("SELECT 1 + 1").execute())
+			.compose(rows -> pool.withConnection(vertx, conn -> conn.query("SELECT 2 + 2").execute()).map(rows))
+			.onComplete(testContext.succeeding(rows -> testContext.verify(() -> {
+				assertEquals(2, rows.iterator().next().getInteger(0));
+				assertEquals(2, registry.get("database.pool.wait").timer().count());
+				assertEquals(0.0, registry.get("database.pool.requests.active").gauge().value());
+				pool.close();
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("withConnection - should reject requests beyond the pool size and wait queue")
+	void testWithConnection_waitQueueFull(Vertx vertx, VertxTestContext testContext) {
+		DatabasePoolProperties properties = new DatabasePoolProperties();
+		properties.setMaxPoolSize(1);
+		properties.setMaxWaitQueueSize(1);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		DatabasePool pool = new DatabasePool(properties, registry, DB_URL, "org.h2.Driver", "sa", "");
+		Promise<Void> holding = Promise.promise();
+
+		Future<Void> first = pool.withConnection(vertx, conn -> holding.future());
+		Future<Integer> queued = pool.withConnection(vertx, conn -> Future.succeededFuture(1));
+		Future<Integer> rejected = pool.withConnection(vertx, conn -> Future.succeededFuture(2));
+
+		testContext.verify(() -> {
+			assertTrue(rejected.failed());
+			assertEquals(1.0, registry.get("database.pool.rejections").counter().count());
+		});
+		holding.complete();
+		Future.all(first, queued).onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+			assertEquals(1, queued.result());
+			pool.close();
+			testContext.completeNow();
+		})));
+	}
+}
@@ -0,0 +1,107 @@
+package it.demo.fabrick.unit.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import it.demo.fabrick.db.SchemaMigrator;
+
+/**
+ * Unit tests for SchemaMigrator, against an in-memory H2 database.
+ */
+@DisplayName("SchemaMigrator Tests")
+class SchemaMigratorTest {
+
+	private static final String DB_URL = "jdbc:h2:mem:migrator-test;DB_CLOSE_DELAY=-1";
+
+	@BeforeEach
+	void setUp() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+		}
+	}
+
+	@Test
+	@DisplayName("migrate - should create the schema and record its version")
+	void testMigrate_emptyDatabase() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "")) {
+			assertEquals(1, SchemaMigrator.migrate(connection));
+
+			assertEquals(1, count(connection, "SELECT COUNT(*) FROM SCHEMA_VERSION WHERE VERSION = 1"));
+			assertEquals(0, count(connection, "SELECT COUNT(*) FROM CONTO_TRANSACTION"));
+			assertEquals(0, count(connection, "SELECT COUNT(*) FROM CONTO_TRANSACTION_SYNC"));
+			assertEquals(0, count(connection, "SELECT COUNT(*) FROM IDEMPOTENCY_KEY"));
+		}
+	}
+
+	@Test
+	@DisplayName("migrate - should keep the stored data and apply nothing on restart")
+	void testMigrate_restartKeepsData() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			SchemaMigrator.migrate(connection);
+			statement.execute("INSERT INTO CONTO_TRANSACTION (TRANSACTION_ID, ACCOUNT_ID, ACCOUNTING_DATE, AMOUNT) "
+				+ "VALUES ('T1', '14537780', '2024-03-01', 1)");
+
+			assertEquals(0, SchemaMigrator.migrate(connection));
+
+			assertEquals(1, count(connection, "SELECT COUNT(*) FROM CONTO_TRANSACTION"));
+			assertEquals(1, count(connection, "SELECT COUNT(*) FROM SCHEMA_VERSION"));
+		}
+	}
+
+	@Test
+	@DisplayName("migrate - should adopt a database created before versioning as version 1")
+	void testMigrate_unversionedDatabase() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE CONTO_TRANSACTION (TRANSACTION_ID VARCHAR(100) PRIMARY KEY, "
+				+ "ACCOUNT_ID VARCHAR(50), OPERATION_ID VARCHAR(100), ACCOUNTING_DATE DATE, VALUE_DATE DATE, "
+				+ "TYPE_ENUMERATION VARCHAR(50), TYPE_VALUE VARCHAR(50), AMOUNT DOUBLE NOT NULL, "
+				+ "CURRENCY VARCHAR(3), DESCRIPTION VARCHAR(500))");
+			statement.execute("INSERT INTO CONTO_TRANSACTION (TRANSACTION_ID, ACCOUNT_ID, ACCOUNTING_DATE, AMOUNT) "
+				+ "VALUES ('T1', '14537780', '2024-03-01', 1)");
+
+			assertEquals(1, SchemaMigrator.migrate(connection));
+
+			assertEquals(1, count(connection, "SELECT COUNT(*) FROM CONTO_TRANSACTION"));
+			assertEquals(0, count(connection, "SELECT COUNT(*) FROM CONTO_TRANSACTION_SYNC"));
+		}
+	}
+
+	@Test
+	@DisplayName("migrate - should add ACCOUNT_ID to a table of the first schema.sql and adopt it as version 1")
+	void testMigrate_firstSchemaWithoutAccountId() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE CONTO_TRANSACTION (TRANSACTION_ID VARCHAR(100) PRIMARY KEY, "
+				+ "OPERATION_ID VARCHAR(100), ACCOUNTING_DATE DATE, VALUE_DATE DATE, "
+				+ "TYPE_ENUMERATION VARCHAR(50), TYPE_VALUE VARCHAR(50), AMOUNT DOUBLE NOT NULL, "
+				+ "CURRENCY VARCHAR(3), DESCRIPTION VARCHAR(500))");
+			statement.execute("INSERT INTO CONTO_TRANSACTION (TRANSACTION_ID, ACCOUNTING_DATE, AMOUNT) "
+				+ "VALUES ('T1', '2024-03-01', 1)");
+
+			assertEquals(1, SchemaMigrator.migrate(connection));
+
+			assertEquals(1, count(connection, "SELECT COUNT(*) FROM CONTO_TRANSACTION WHERE ACCOUNT_ID IS NULL"));
+			assertEquals(2, count(connection, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+				+ "WHERE TABLE_NAME = 'CONTO_TRANSACTION' AND INDEX_NAME LIKE 'IDX_CONTO_TRANSACTION_%'"));
+		}
+	}
+
+	private static int count(Connection connection, String sql) throws Exception {
+		try (Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery(sql)) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+}
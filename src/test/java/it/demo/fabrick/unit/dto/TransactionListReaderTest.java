@@ -0,0 +1,69 @@
+package it.demo.fabrick.unit.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.buffer.Buffer;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.mapper.TransactionListReader;
+
+/**
+ * Unit tests for the streaming TransactionListReader.
+ */
+@DisplayName("TransactionListReader Tests")
+class TransactionListReaderTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	@DisplayName("should read payload.list items in order, skipping the other fields")
+	void testRead_listItems() throws IOException {
+		String json = "{"
+			+ "\"status\":\"OK\","
+			+ "\"error\":[{\"code\":\"X\",\"description\":\"ignored\"}],"
+			+ "\"payload\":{"
+			+ "\"extra\":{\"nested\":[1,2]},"
+			+ "\"list\":["
+			+ "{\"transactionId\":\"T001\",\"amount\":100.00,\"type\":{\"enumeration\":\"GBS_TRANSACTION_TYPE\",\"value\":\"GBS_ACCOUNT_TRANSACTION_TYPE_0050\"}},"
+			+ "{\"transactionId\":\"T002\",\"amount\":-50.00}"
+			+ "]"
+			+ "}"
+			+ "}";
+		List<ListaTransactionDto> list = new ArrayList<ListaTransactionDto>();
+
+		int count = TransactionListReader.read(mapper, Buffer.buffer(json), list::add);
+
+		assertEquals(2, count);
+		assertEquals("T001", list.get(0).getTransactionId());
+		assertEquals("GBS_TRANSACTION_TYPE", list.get(0).getType().getEnumeration());
+		assertEquals(0, list.get(1).getAmount().compareTo(new BigDecimal("-50.00")));
+	}
+
+	@Test
+	@DisplayName("should read no items from an empty list or a missing payload")
+	void testRead_empty() throws IOException {
+		List<ListaTransactionDto> list = new ArrayList<ListaTransactionDto>();
+
+		assertEquals(0, TransactionListReader.read(mapper, Buffer.buffer("{\"status\":\"OK\",\"payload\":{\"list\":[]}}"), list::add));
+		assertEquals(0, TransactionListReader.read(mapper, Buffer.buffer("{\"status\":\"KO\"}"), list::add));
+		assertEquals(0, list.size());
+	}
+
+	@Test
+	@DisplayName("should fail on a malformed body")
+	void testRead_malformed() {
+		assertThrows(IOException.class,
+			() -> TransactionListReader.read(mapper, Buffer.buffer("{\"payload\":{\"list\":[{\"transactionId\":"), t -> { }));
+		assertThrows(IOException.class, () -> TransactionListReader.read(mapper, Buffer.buffer("[]"), t -> { }));
+	}
+}
@@ -0,0 +1,135 @@
+package it.demo.fabrick.unit.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.MultiMap;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.mapper.TransactionQuery;
+
+/**
+ * Unit tests for TransactionQuery filters, pagination and projection.
+ */
+@DisplayName("TransactionQuery Tests")
+class TransactionQueryTest {
+
+	/** 3 days, 4 transactions per day, newest day first; odd transactions in USD */
+	private final List<ListaTransactionDto> list = transactions();
+
+	@Test
+	@DisplayName("should return the list as is without query parameters")
+	void testApply_noQuery() {
+		TransactionQuery.Page page = TransactionQuery.parse(params()).apply(list);
+
+		assertSame(list, page.items());
+		assertNull(page.nextCursor());
+	}
+
+	@Test
+	@DisplayName("should walk the pages with the cursor until the last page")
+	void testApply_pages() {
+		List<String> ids = new ArrayList<String>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			MultiMap params = params("limit", "5");
+			if (cursor != null) {
+				params.add("cursor", cursor);
+			}
+			TransactionQuery.Page page = TransactionQuery.parse(params).apply(list);
+			page.items().forEach(item -> ids.add(((ListaTransactionDto) item).getTransactionId()));
+			cursor = page.nextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(3, pages);
+		assertEquals(list.stream().map(ListaTransactionDto::getTransactionId).toList(), ids);
+	}
+
+	@Test
+	@DisplayName("should resume from the first older day when the cursor transaction is gone")
+	void testApply_cursorTransactionGone() {
+		String cursor = TransactionQuery.parse(params("limit", "2")).apply(list).nextCursor();
+		List<ListaTransactionDto> changed = new ArrayList<ListaTransactionDto>(list);
+		changed.remove(1);
+
+		TransactionQuery.Page page = TransactionQuery.parse(params("limit", "2", "cursor", cursor)).apply(changed);
+
+		assertEquals("2024-03-02", ((ListaTransactionDto) page.items().get(0)).getAccountingDate());
+	}
+
+	@Test
+	@DisplayName("should filter on type, currency and amount range")
+	void testApply_filters() {
+		MultiMap params = params("type", "TYPE_1,TYPE_3", "currency", "usd", "minAmount", "-50", "maxAmount", "-30");
+
+		TransactionQuery.Page page = TransactionQuery.parse(params).apply(list);
+
+		assertEquals(List.of("T3-3", "T2-3", "T1-3"),
+			page.items().stream().map(item -> ((ListaTransactionDto) item).getTransactionId()).toList());
+		// the free-text label is not a filter
+		assertTrue(TransactionQuery.parse(params("type", "Type 1")).apply(list).items().isEmpty());
+	}
+
+	@Test
+	@DisplayName("should project the requested fields only, in order")
+	void testApply_projection() {
+		TransactionQuery.Page page = TransactionQuery.parse(params("fields", "amount,transactionId", "limit", "1"))
+			.apply(list);
+
+		@SuppressWarnings("unchecked")
+		Map<String, Object> item = (Map<String, Object>) page.items().get(0);
+		assertEquals(List.of("amount", "transactionId"), List.copyOf(item.keySet()));
+		assertEquals("T3-0", item.get("transactionId"));
+	}
+
+	@Test
+	@DisplayName("should reject invalid parameters")
+	void testParse_invalid() {
+		assertThrows(IllegalArgumentException.class, () -> TransactionQuery.parse(params("limit", "0")));
+		assertThrows(IllegalArgumentException.class, () -> TransactionQuery.parse(params("limit", "abc")));
+		assertThrows(IllegalArgumentException.class, () -> TransactionQuery.parse(params("cursor", "!!")));
+		assertThrows(IllegalArgumentException.class, () -> TransactionQuery.parse(params("minAmount", "x")));
+		assertThrows(IllegalArgumentException.class,
+			() -> TransactionQuery.parse(params("minAmount", "10", "maxAmount", "1")));
+		assertThrows(IllegalArgumentException.class, () -> TransactionQuery.parse(params("fields", "amount,iban")));
+	}
+
+	private static MultiMap params(String... pairs) {
+		MultiMap params = MultiMap.caseInsensitiveMultiMap();
+		for (int i = 0; i < pairs.length; i += 2) {
+			params.add(pairs[i], pairs[i + 1]);
+		}
+		return params;
+	}
+
+	private static List<ListaTransactionDto> transactions() {
+		List<ListaTransactionDto> list = new ArrayList<ListaTransactionDto>();
+		for (int day = 3; day >= 1; day--) {
+			for (int i = 0; i < 4; i++) {
+				ListaTransactionDto dto = new ListaTransactionDto();
+				dto.setTransactionId("T" + day + "-" + i);
+				dto.setAccountingDate("2024-03-0" + day);
+				dto.setAmount(new BigDecimal(-10.5 * (i + 1)));
+				dto.setCurrency(i % 2 == 1 ? "USD" : "EUR");
+				ListaTransactionDto.Type type = dto.new Type();
+				type.setEnumeration("TYPE_" + i);
+				type.setValue("Type " + i);
+				dto.setType(type);
+				list.add(dto);
+			}
+		}
+		return list;
+	}
+}
@@ -0,0 +1,197 @@
+package it.demo.fabrick.unit.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.dto.rest.TransazioniResponseDto;
+import it.demo.fabrick.mapper.TransactionStreamWriter;
+
+/**
+ * Unit tests for the chunked TransactionStreamWriter.
+ */
+@DisplayName("TransactionStreamWriter Tests")
+class TransactionStreamWriterTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	@DisplayName("JSON - should write the same document as the buffered response, in several chunks")
+	void testWrite_json() throws Exception {
+		List<ListaTransactionDto> list = transactions(500);
+		RecordingStream stream = new RecordingStream();
+
+		Future<Void> result = TransactionStreamWriter.write(mapper, stream, list, TransactionStreamWriter.Format.JSON);
+
+		assertTrue(result.succeeded());
+		assertTrue(stream.ended);
+		assertTrue(stream.chunks > 1);
+		TransazioniResponseDto expected = new TransazioniResponseDto();
+		expected.setList(list);
+		assertEquals(mapper.readTree(mapper.writeValueAsBytes(expected)), mapper.readTree(stream.body.getBytes()));
+	}
+
+	@Test
+	@DisplayName("NDJSON - should write one transaction per line")
+	void testWrite_ndjson() throws Exception {
+		RecordingStream stream = new RecordingStream();
+
+		TransactionStreamWriter.write(mapper, stream, transactions(3), TransactionStreamWriter.Format.NDJSON);
+
+		String[] lines = stream.body.toString().split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("T2", mapper.readValue(lines[2], ListaTransactionDto.class).getTransactionId());
+	}
+
+	@Test
+	@DisplayName("should write an empty document for an empty or missing list")
+	void testWrite_empty() {
+		RecordingStream json = new RecordingStream();
+		RecordingStream ndjson = new RecordingStream();
+
+		TransactionStreamWriter.write(mapper, json, null, TransactionStreamWriter.Format.JSON);
+		TransactionStreamWriter.write(mapper, ndjson, List.of(), TransactionStreamWriter.Format.NDJSON);
+
+		assertEquals("{\"list\":[]}", json.body.toString());
+		assertTrue(ndjson.ended);
+		assertEquals(0, ndjson.body.length());
+	}
+
+	@Test
+	@DisplayName("should stop writing while the write queue is full and resume on drain")
+	void testWrite_backpressure() {
+		RecordingStream stream = new RecordingStream();
+		stream.full = true;
+
+		Future<Void> result = TransactionStreamWriter.write(mapper, stream, transactions(500),
+			TransactionStreamWriter.Format.NDJSON);
+
+		assertEquals(0, stream.chunks);
+		assertFalse(result.isComplete());
+
+		stream.maxChunks = 1;
+		stream.drain();
+		assertEquals(1, stream.chunks);
+		assertFalse(result.isComplete());
+
+		stream.maxChunks = Integer.MAX_VALUE;
+		stream.drain();
+		assertTrue(result.succeeded());
+		assertEquals(500, stream.body.toString().split("\n").length);
+	}
+
+	@Test
+	@DisplayName("should fail when the stream fails")
+	void testWrite_streamFailure() {
+		RecordingStream stream = new RecordingStream();
+		stream.full = true;
+
+		Future<Void> result = TransactionStreamWriter.write(mapper, stream, transactions(10),
+			TransactionStreamWriter.Format.JSON);
+		stream.exceptionHandler.handle(new IllegalStateException("Connection was closed"));
+		stream.drain();
+
+		assertTrue(result.failed());
+		assertEquals(0, stream.chunks);
+	}
+
+	private static List<ListaTransactionDto> transactions(int count) {
+		List<ListaTransactionDto> list = new ArrayList<ListaTransactionDto>();
+		for (int i = 0; i < count; i++) {
+			ListaTransactionDto dto = new ListaTransactionDto();
+			dto.setTransactionId("T" + i);
+			dto.setOperationId("OP" + i);
+			dto.setAccountingDate("2019-04-01");
+			dto.setValueDate("2019-04-01");
+			dto.setAmount(new BigDecimal("-" + i + ".50"));
+			dto.setCurrency("EUR");
+			dto.setDescription("BA JOHN DOE PAYMENT INVOICE " + i);
+			list.add(dto);
+		}
+		return list;
+	}
+
+	/**
+	 * WriteStream recording the written chunks; reports a full write queue when
+	 * {@code full} is set or {@code maxChunks} chunks have been written.
+	 */
+	private static final class RecordingStream implements WriteStream<Buffer> {
+
+		private final Buffer body = Buffer.buffer();
+		private int chunks;
+		private int maxChunks = Integer.MAX_VALUE;
+		private boolean full;
+		private boolean ended;
+		private Handler<Void> drainHandler;
+		private Handler<Throwable> exceptionHandler;
+
+		void drain() {
+			full = false;
+			Handler<Void> handler = drainHandler;
+			drainHandler = null;
+			if (handler != null) {
+				handler.handle(null);
+			}
+		}
+
+		@Override
+		public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+			exceptionHandler = handler;
+			return this;
+		}
+
+		@Override
+		public Future<Void> write(Buffer data) {
+			body.appendBuffer(data);
+			chunks++;
+			return Future.succeededFuture();
+		}
+
+		@Override
+		public void write(Buffer data, Handler<AsyncResult<Void>> handler) {
+			handler.handle(write(data));
+		}
+
+		@Override
+		public Future<Void> end() {
+			ended = true;
+			return Future.succeededFuture();
+		}
+
+		@Override
+		public void end(Handler<AsyncResult<Void>> handler) {
+			handler.handle(end());
+		}
+
+		@Override
+		public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+			return this;
+		}
+
+		@Override
+		public boolean writeQueueFull() {
+			return full || chunks >= maxChunks;
+		}
+
+		@Override
+		public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+			drainHandler = handler;
+			return this;
+		}
+	}
+}
@@ -2,10 +2,21 @@ package it.demo.fabrick.unit.testutil;
 
 import org.mockito.Mockito;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.json.JsonArray;
+import it.demo.fabrick.cache.BalanceCache;
+import it.demo.fabrick.cache.IdempotencyStore;
+import it.demo.fabrick.cache.TransactionDayCache;
+import it.demo.fabrick.cache.TransactionHistoryStore;
+import it.demo.fabrick.client.FabrickClientFactory;
+import it.demo.fabrick.config.DatabasePoolProperties;
+import it.demo.fabrick.config.FabrickClientProperties;
+import it.demo.fabrick.db.DatabasePool;
 
 /**
  * Shared test utilities for verticle unit testing.
@@ -94,6 +105,43 @@ public class VerticleTestUtils {
 		return new io.vertx.core.json.JsonObject().put("indirizzo", url);
 	}
 
+	/**
+	 * Create a Fabrick client factory with default pool settings and an in-memory meter registry.
+	 *
+	 * @return FabrickClientFactory for verticle construction
+	 */
+	public static FabrickClientFactory clientFactory() {
+		return new FabrickClientFactory(new FabrickClientProperties(), new SimpleMeterRegistry());
+	}
+
+	public static BalanceCache balanceCache() {
+		return new BalanceCache(true, 10000, 30000, new SimpleMeterRegistry());
+	}
+
+	public static TransactionDayCache transactionDayCache() {
+		return new TransactionDayCache(true, 2, 1000, new SimpleMeterRegistry());
+	}
+
+	/**
+	 * Create a database pool with default settings on the given H2 database.
+	 *
+	 * @param dbUrl the JDBC URL
+	 * @return DatabasePool for store and verticle construction
+	 */
+	public static DatabasePool databasePool(String dbUrl) {
+		return new DatabasePool(new DatabasePoolProperties(), new SimpleMeterRegistry(), dbUrl, "org.h2.Driver", "sa", "");
+	}
+
+	public static TransactionHistoryStore transactionHistoryStore() {
+		return new TransactionHistoryStore(new SimpleMeterRegistry(), false,
+			databasePool("jdbc:h2:mem:unit-test;DB_CLOSE_DELAY=-1"));
+	}
+
+	public static IdempotencyStore idempotencyStore() {
+		return new IdempotencyStore(new ObjectMapper(), new SimpleMeterRegistry(),
+			databasePool("jdbc:h2:mem:unit-test;DB_CLOSE_DELAY=-1"), 600000, 24);
+	}
+
 	private VerticleTestUtils() {
 		// Utility class - prevent instantiation
 	}
@@ -0,0 +1,43 @@
+package it.demo.fabrick.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import it.demo.fabrick.utils.DateRange;
+
+/**
+ * Unit tests for DateRange.
+ */
+@DisplayName("DateRange Tests")
+class DateRangeTest {
+
+	private static final DateRange YEAR = new DateRange(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+
+	@Test
+	@DisplayName("split - should cover the range with sub-ranges of max days, newest first")
+	void testSplit_newestFirst() {
+		List<DateRange> ranges = YEAR.split(100);
+
+		assertEquals(4, ranges.size());
+		assertEquals(new DateRange(LocalDate.of(2023, 9, 23), LocalDate.of(2023, 12, 31)), ranges.get(0));
+		assertEquals(new DateRange(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 3, 6)), ranges.get(3));
+		for (int i = 1; i < ranges.size(); i++) {
+			assertEquals(ranges.get(i).to().plusDays(1), ranges.get(i - 1).from());
+		}
+	}
+
+	@Test
+	@DisplayName("split - should keep a short range, or any range with max days 0, whole")
+	void testSplit_whole() {
+		DateRange day = new DateRange(LocalDate.of(2023, 5, 1), LocalDate.of(2023, 5, 1));
+
+		assertEquals(List.of(day), day.split(31));
+		assertEquals(List.of(YEAR), YEAR.split(365));
+		assertEquals(List.of(YEAR), YEAR.split(0));
+	}
+}
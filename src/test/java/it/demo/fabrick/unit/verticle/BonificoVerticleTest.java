@@ -16,6 +16,7 @@ import it.demo.fabrick.dto.ListaTransactionDto;
 import it.demo.fabrick.dto.TransactionDto;
 import it.demo.fabrick.dto.TransactionDto.Payload;
 import it.demo.fabrick.dto.rest.BonificoRestRequestDto;
+import it.demo.fabrick.unit.testutil.VerticleTestUtils;
 import it.demo.fabrick.vertx.BonificoVerticle;
 
 /**
@@ -32,7 +33,9 @@ class BonificoVerticleTest {
 
 	@BeforeEach
 	void setUp() {
-		verticle = new BonificoVerticle(new ObjectMapper(), TEST_API_KEY, TEST_AUTH_SCHEMA);
+		verticle = new BonificoVerticle(new ObjectMapper(), TEST_API_KEY, TEST_AUTH_SCHEMA,
+			VerticleTestUtils.clientFactory(), VerticleTestUtils.balanceCache(),
+			VerticleTestUtils.idempotencyStore());
 	}
 
 	// ==================== start() Tests ====================
@@ -40,9 +43,8 @@ class BonificoVerticleTest {
 	@Test
 	@DisplayName("start - should subscribe to bonifico_bus")
 	void testStart_subscribesToBonificoBus(Vertx vertx, VertxTestContext testContext) {
-		// Initiate deployment - if start() succeeds without exception, the test passes
-		vertx.deployVerticle(verticle);
-		testContext.completeNow();
+		// start() completes once the pooled client is created and the consumer is registered
+		vertx.deployVerticle(verticle, testContext.succeedingThenComplete());
 	}
 
 	// ==================== Helper Method Tests ====================
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.vertx.core.Vertx;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.unit.testutil.VerticleTestUtils;
 import it.demo.fabrick.vertx.ListaTransazioniVerticle;
 
 /**
@@ -26,7 +27,9 @@ class ListaTransazioniVerticleTest {
 
 	@BeforeEach
 	void setUp() {
-		verticle = new ListaTransazioniVerticle(new ObjectMapper(), TEST_API_KEY, TEST_AUTH_SCHEMA);
+		verticle = new ListaTransazioniVerticle(new ObjectMapper(), TEST_API_KEY, TEST_AUTH_SCHEMA,
+			VerticleTestUtils.clientFactory(), VerticleTestUtils.transactionDayCache(),
+			VerticleTestUtils.transactionHistoryStore(), 500, 31, 4);
 	}
 
 	// ==================== start() Tests ====================
@@ -34,8 +37,7 @@ class ListaTransazioniVerticleTest {
 	@Test
 	@DisplayName("start - should subscribe to lista_bus")
 	void testStart_subscribesToListaBus(Vertx vertx, VertxTestContext testContext) {
-		// Initiate deployment - if start() succeeds without exception, the test passes
-		vertx.deployVerticle(verticle);
-		testContext.completeNow();
+		// start() completes once the pooled client is created and the consumer is registered
+		vertx.deployVerticle(verticle, testContext.succeedingThenComplete());
 	}
 }
@@ -13,6 +13,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.vertx.core.Vertx;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.unit.testutil.VerticleTestUtils;
 import it.demo.fabrick.vertx.SaldoVerticle;
 
 /**
@@ -29,7 +30,8 @@ class SaldoVerticleTest {
 
 	@BeforeEach
 	void setUp() {
-		verticle = new SaldoVerticle(new ObjectMapper(), TEST_API_KEY, TEST_AUTH_SCHEMA);
+		verticle = new SaldoVerticle(new ObjectMapper(), TEST_API_KEY, TEST_AUTH_SCHEMA,
+			VerticleTestUtils.clientFactory(), VerticleTestUtils.balanceCache());
 	}
 
 	// ==================== start() Tests ====================
@@ -37,11 +39,7 @@ class SaldoVerticleTest {
 	@Test
 	@DisplayName("start - should subscribe to saldo_bus")
 	void testStart_subscribesToSaldoBus(Vertx vertx, VertxTestContext testContext) {
-		// Initiate deployment - if start() succeeds without exception, the test passes
-		// Note: The deployment promise may not complete in test context, but the
-		// verticle's start() method is still called and event bus subscription happens
-		vertx.deployVerticle(verticle);
-		// Complete immediately since the verticle will be deployed asynchronously
-		testContext.completeNow();
+		// start() completes once the pooled client is created and the consumer is registered
+		vertx.deployVerticle(verticle, testContext.succeedingThenComplete());
 	}
 }
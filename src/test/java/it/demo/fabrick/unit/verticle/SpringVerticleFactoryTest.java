@@ -0,0 +1,72 @@
+package it.demo.fabrick.unit.verticle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.vertx.SpringVerticleFactory;
+
+/**
+ * Unit tests for SpringVerticleFactory, with a prototype verticle bean in a Spring context.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("SpringVerticleFactory Tests")
+class SpringVerticleFactoryTest {
+
+	private static final Set<CountingVerticle> STARTED = Collections.synchronizedSet(
+		Collections.newSetFromMap(new IdentityHashMap<CountingVerticle, Boolean>()));
+
+	public static class CountingVerticle extends AbstractVerticle {
+
+		@Override
+		public void start() {
+			STARTED.add(this);
+		}
+	}
+
+	private GenericApplicationContext applicationContext;
+
+	@BeforeEach
+	void setUp(Vertx vertx) {
+		STARTED.clear();
+		applicationContext = new GenericApplicationContext();
+		applicationContext.registerBean("countingVerticle", CountingVerticle.class,
+			definition -> definition.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+		applicationContext.refresh();
+		vertx.registerVerticleFactory(new SpringVerticleFactory(applicationContext));
+	}
+
+	@AfterEach
+	void tearDown() {
+		applicationContext.close();
+	}
+
+	@Test
+	@DisplayName("createVerticle - should create a new prototype bean for every deployed instance")
+	void testCreateVerticle_instancePerDeployment(Vertx vertx, VertxTestContext testContext) {
+		String name = SpringVerticleFactory.verticleName("countingVerticle");
+
+		vertx.deployVerticle(name, new DeploymentOptions().setInstances(3))
+			.compose(id -> vertx.deployVerticle(name))
+			.onComplete(testContext.succeeding(id -> testContext.verify(() -> {
+				assertEquals("spring:countingVerticle", name);
+				assertEquals(4, STARTED.size());
+				testContext.completeNow();
+			})));
+	}
+}
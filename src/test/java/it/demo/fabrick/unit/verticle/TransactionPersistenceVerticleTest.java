@@ -0,0 +1,201 @@
+package it.demo.fabrick.unit.verticle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import it.demo.fabrick.cache.KnownTransactionIds;
+import it.demo.fabrick.db.DatabasePool;
+import it.demo.fabrick.db.SchemaMigrator;
+import it.demo.fabrick.dto.ListaTransactionDto;
+import it.demo.fabrick.dto.bus.TransactionPersistenceRequestDto;
+import it.demo.fabrick.error.ErrorCode;
+import it.demo.fabrick.unit.testutil.VerticleTestUtils;
+import it.demo.fabrick.utils.EventBusConstants;
+import it.demo.fabrick.vertx.TransactionPersistenceVerticle;
+import it.demo.fabrick.vertx.codec.EventBusCodecs;
+
+/**
+ * Unit tests for TransactionPersistenceVerticle, against an in-memory H2 database migrated to the application schema.
+ */
+@ExtendWith(VertxExtension.class)
+@DisplayName("TransactionPersistenceVerticle Tests")
+class TransactionPersistenceVerticleTest {
+
+	private static final String DB_URL = "jdbc:h2:mem:persistence-test;DB_CLOSE_DELAY=-1";
+	private static final String ACCOUNT_ID = "14537780";
+
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp(Vertx vertx) throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+			SchemaMigrator.migrate(connection);
+		}
+		registry = new SimpleMeterRegistry();
+		EventBusCodecs.register(vertx.eventBus(), new ObjectMapper());
+	}
+
+	/**
+	 * Deploy the verticle with chunks of 3 rows: 7 transactions take two chunk statements and a
+	 * single-row batch of 1.
+	 */
+	private Future<String> deploy(Vertx vertx, int flushSize, long flushIntervalMillis, int maxBuffered) {
+		DatabasePool databasePool = VerticleTestUtils.databasePool(DB_URL);
+		return vertx.deployVerticle(new TransactionPersistenceVerticle(registry, databasePool,
+			new KnownTransactionIds(registry, databasePool, true, 1000), 3, flushSize, flushIntervalMillis, maxBuffered));
+	}
+
+	@Test
+	@DisplayName("should insert new transactions and skip existing ones")
+	void testPersist_insertedAndSkipped(Vertx vertx, VertxTestContext testContext) {
+		List<ListaTransactionDto> first = transactions(0, 7);
+		first.add(transaction(2));
+		List<ListaTransactionDto> second = transactions(5, 9);
+
+		deploy(vertx, 1000, 10, 1000)
+			.compose(id -> persist(vertx, first))
+			.compose(counts -> {
+				testContext.verify(() -> assertEquals(new JsonObject().put("inserted", 7).put("skipped", 1), counts));
+				return persist(vertx, second);
+			})
+			.onComplete(testContext.succeeding(counts -> testContext.verify(() -> {
+				assertEquals(new JsonObject().put("inserted", 2).put("skipped", 2), counts);
+				assertEquals(9.0, registry.get("persistence.transactions").tag("result", "inserted").counter().count());
+				assertEquals(3.0, registry.get("persistence.transactions").tag("result", "skipped").counter().count());
+				// T5 and T6 of the second request were known from the first flush
+				assertEquals(2.0, registry.get("known.transactions.hits").counter().count());
+
+				try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+					 Statement statement = connection.createStatement();
+					 ResultSet rs = statement.executeQuery("SELECT COUNT(*), SUM(AMOUNT), COUNT(TYPE_VALUE) "
+						 + "FROM CONTO_TRANSACTION WHERE ACCOUNT_ID = '" + ACCOUNT_ID + "'")) {
+					rs.next();
+					assertEquals(9, rs.getInt(1));
+					assertEquals(-45.0, rs.getDouble(2));
+					assertEquals(5, rs.getInt(3));
+				}
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("should flush overlapping requests together once the buffer reaches flushSize")
+	void testPersist_coalescedFlush(Vertx vertx, VertxTestContext testContext) {
+		deploy(vertx, 6, 60000, 1000)
+			.compose(id -> Future.all(persist(vertx, transactions(0, 4)), persist(vertx, transactions(2, 6))))
+			.onComplete(testContext.succeeding(all -> testContext.verify(() -> {
+				JsonObject counts = new JsonObject().put("inserted", 6).put("skipped", 2);
+				assertEquals(counts, all.resultAt(0));
+				assertEquals(counts, all.resultAt(1));
+				assertEquals(6, countRows());
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("should reject requests beyond the buffer size")
+	void testPersist_bufferFull(Vertx vertx, VertxTestContext testContext) {
+		deploy(vertx, 1000, 60000, 5)
+			.compose(id -> persist(vertx, transactions(0, 6)))
+			.onComplete(testContext.failing(e -> testContext.verify(() -> {
+				assertEquals(ErrorCode.PERSISTENCE_BUFFER_FULL, ((ReplyException) e).failureCode());
+				assertEquals(6.0, registry.get("persistence.transactions").tag("result", "rejected").counter().count());
+				testContext.completeNow();
+			})));
+	}
+
+	@Test
+	@DisplayName("should bound the transactions buffered by all the instances")
+	void testPersist_bufferFullAcrossInstances(Vertx vertx, VertxTestContext testContext) {
+		// the event bus alternates the requests between the two instances
+		Future.all(deploy(vertx, 1000, 60000, 5), deploy(vertx, 1000, 60000, 5))
+			.onComplete(testContext.succeeding(ids -> {
+				persist(vertx, transactions(0, 3));
+				vertx.setTimer(50, t -> persist(vertx, transactions(3, 6))
+					.onComplete(testContext.failing(e -> testContext.verify(() -> {
+						assertEquals(ErrorCode.PERSISTENCE_BUFFER_FULL, ((ReplyException) e).failureCode());
+						assertEquals(3.0, registry.get("persistence.buffer.size").gauge().value());
+						testContext.completeNow();
+					}))));
+			}));
+	}
+
+	@Test
+	@DisplayName("should flush the buffer when undeployed")
+	void testPersist_flushOnStop(Vertx vertx, VertxTestContext testContext) {
+		deploy(vertx, 1000, 60000, 1000).onComplete(testContext.succeeding(id -> {
+			Future<JsonObject> buffered = persist(vertx, transactions(0, 5));
+			vertx.setTimer(50, t -> vertx.undeploy(id)
+				.onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+					assertEquals(5, countRows());
+					assertEquals(5, buffered.result().getInteger("inserted"));
+					testContext.completeNow();
+				}))));
+		}));
+	}
+
+	private static int countRows() throws Exception {
+		try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+			 Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM CONTO_TRANSACTION")) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	private Future<JsonObject> persist(Vertx vertx, List<ListaTransactionDto> transactions) {
+		return vertx.eventBus().<JsonObject>request(EventBusConstants.TRANSACTION_PERSISTENCE_BUS,
+				new TransactionPersistenceRequestDto("req-1", ACCOUNT_ID, transactions, null, null))
+			.map(message -> message.body());
+	}
+
+	private static List<ListaTransactionDto> transactions(int from, int to) {
+		List<ListaTransactionDto> list = new ArrayList<ListaTransactionDto>();
+		for (int i = from; i < to; i++) {
+			list.add(transaction(i));
+		}
+		return list;
+	}
+
+	/** Even transactions have a type, odd ones have none */
+	private static ListaTransactionDto transaction(int i) {
+		ListaTransactionDto dto = new ListaTransactionDto();
+		dto.setTransactionId("T" + i);
+		dto.setOperationId("OP" + i);
+		dto.setAccountingDate("2024-03-0" + (i % 5 + 1));
+		dto.setValueDate(i % 3 == 0 ? null : "2024-03-10");
+		if (i % 2 == 0) {
+			ListaTransactionDto.Type type = dto.new Type();
+			type.setEnumeration("GBS_TRANSACTION_TYPE");
+			type.setValue("GBS_TRANSACTION_TYPE_0050");
+			dto.setType(type);
+		}
+		dto.setAmount(new BigDecimal("-5.00"));
+		dto.setCurrency("EUR");
+		dto.setDescription("PAYMENT " + i);
+		return dto;
+	}
+}